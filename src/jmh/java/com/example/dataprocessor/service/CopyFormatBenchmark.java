@@ -0,0 +1,158 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.PgBinaryCopyWriter;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text CSV against binary COPY for the import. The encode benchmarks measure the client
+ * side, parsing an upload and writing the COPY stream to a null stream. The copy
+ * benchmarks send streams encoded beforehand into an unindexed temporary table, so their
+ * time is mostly the server parsing and storing rows. The database is taken from the
+ * DATABASE_URL, DATABASE_USERNAME and DATABASE_PASSWORD environment variables, as for the
+ * application. The "rows" counter reports rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CopyFormatBenchmark {
+
+    private static final String TABLE = "copy_format_bench";
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private final CsvToDbService service = new CsvToDbService();
+    private byte[] upload;
+    private byte[] csvStream;
+    private byte[] binaryStream;
+    private Connection connection;
+    private CopyManager copyManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        upload = generateUpload(rows);
+        ByteArrayOutputStream csv = new ByteArrayOutputStream(upload.length);
+        encodeCsv(csv);
+        csvStream = csv.toByteArray();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream(upload.length);
+        encodeBinary(binary);
+        binaryStream = binary.toByteArray();
+
+        // Environment variables reach the forked benchmark JVM, unlike Maven's system properties
+        connection = DriverManager.getConnection(
+                env("DATABASE_URL", "jdbc:postgresql://localhost:5432/dataprocessor"),
+                env("DATABASE_USERNAME", "postgres"),
+                env("DATABASE_PASSWORD", "password"));
+        copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE " + TABLE + " (LIKE students INCLUDING DEFAULTS)");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + TABLE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Benchmark
+    public void csvEncode(RowCounter counter) throws Exception {
+        encodeCsv(DiscardingOutputStream.INSTANCE);
+        counter.rows += rows;
+    }
+
+    @Benchmark
+    public void binaryEncode(RowCounter counter) throws Exception {
+        encodeBinary(DiscardingOutputStream.INSTANCE);
+        counter.rows += rows;
+    }
+
+    @Benchmark
+    public void csvCopy(RowCounter counter) throws Exception {
+        counter.rows += copyManager.copyIn(CsvToDbService.copySql(TABLE, true), new ByteArrayInputStream(csvStream));
+    }
+
+    @Benchmark
+    public void binaryCopy(RowCounter counter) throws Exception {
+        counter.rows += copyManager.copyIn(CsvToDbService.BINARY_COPY_SQL.replace("students", TABLE),
+                new ByteArrayInputStream(binaryStream));
+    }
+
+    private void encodeCsv(OutputStream out) throws Exception {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(upload), StandardCharsets.UTF_8))) {
+            CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            service.adjustScores(reader, writer, new ImportStatsCollector());
+            writer.flush();
+        }
+    }
+
+    private void encodeBinary(OutputStream out) throws Exception {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(upload), StandardCharsets.UTF_8));
+             PgBinaryCopyWriter writer = new PgBinaryCopyWriter(out, 262144)) {
+            service.encodeBinary(reader, writer, new ImportStatsCollector());
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * An upload as produced by the Excel to CSV conversion
+     */
+    private static byte[] generateUpload(int rows) throws Exception {
+        Random random = new Random(42L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 64);
+        try (CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.writeNext(CsvToDbService.CSV_HEADER);
+            for (int i = 1; i <= rows; i++) {
+                writer.writeNext(new String[]{
+                        String.valueOf(i),
+                        "First" + random.nextInt(100_000),
+                        "Last" + random.nextInt(100_000),
+                        String.format("%04d-%02d-%02d", 2000 + random.nextInt(10), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                        "Class" + (1 + random.nextInt(5)),
+                        String.valueOf(65 + random.nextInt(31))});
+            }
+        }
+        return out.toByteArray();
+    }
+}
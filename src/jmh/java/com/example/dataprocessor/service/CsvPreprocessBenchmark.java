@@ -0,0 +1,95 @@
+package com.example.dataprocessor.service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import preprocessing throughput of the file mode: the mapped byte-level tokenizer behind
+ * {@link CsvToDbService#adjustScoresAndCreateImportFile} against the OpenCSV reader and
+ * writer it replaced. Both rewrite the same generated upload into a temp file. The "rows"
+ * counter reports rows per second; run with {@code -prof gc} for the allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvPreprocessBenchmark {
+
+    @Param({"10000", "200000"})
+    public int rows;
+
+    private final CsvToDbService service = new CsvToDbService();
+    private Path source;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service.setCopyBufferSize(262144);
+
+        source = Files.createTempFile("preprocess_bench_", ".csv");
+        target = Files.createTempFile("preprocess_bench_", ".csv");
+        Random random = new Random(42L);
+        try (CSVWriter writer = new CSVWriter(new OutputStreamWriter(Files.newOutputStream(source), StandardCharsets.UTF_8))) {
+            writer.writeNext(CsvToDbService.CSV_HEADER);
+            for (int i = 1; i <= rows; i++) {
+                writer.writeNext(new String[]{
+                        String.valueOf(i),
+                        "First" + random.nextInt(100_000),
+                        "Last" + random.nextInt(100_000),
+                        String.format("%04d-%02d-%02d", 2000 + random.nextInt(10), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                        "Class" + (1 + random.nextInt(5)),
+                        String.valueOf(65 + random.nextInt(31))});
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public void mapped(RowCounter counter) throws Exception {
+        service.adjustScoresAndCreateImportFile(source, target, new ImportStatsCollector());
+        counter.rows += rows;
+    }
+
+    /**
+     * The OpenCSV preprocessing, kept as the reference point: a String[] and a String per
+     * field for every row, decoded and encoded with the platform charset
+     */
+    @Benchmark
+    public void openCsvBaseline(RowCounter counter) throws Exception {
+        try (CSVReader reader = new CSVReader(new FileReader(source.toFile()));
+             CSVWriter writer = new CSVWriter(new FileWriter(target.toFile()))) {
+            service.adjustScores(reader, writer, new ImportStatsCollector());
+            writer.flush();
+        }
+        counter.rows += rows;
+    }
+}
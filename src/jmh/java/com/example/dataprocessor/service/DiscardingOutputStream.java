@@ -0,0 +1,22 @@
+package com.example.dataprocessor.service;
+
+import java.io.OutputStream;
+
+/**
+ * Drops everything written to it, so benchmarks measure encoding rather than I/O
+ */
+final class DiscardingOutputStream extends OutputStream {
+
+    static final DiscardingOutputStream INSTANCE = new DiscardingOutputStream();
+
+    private DiscardingOutputStream() {
+    }
+
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.dataprocessor.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workbook generation throughput: the original single-threaded loop against
+ * {@link StudentWorkbookGenerator}. Both write to a null stream so only generation and
+ * XLSX serialization are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExcelGeneratorBenchmark {
+
+    private static final String[] CLASSES = {"Class1", "Class2", "Class3", "Class4", "Class5"};
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Param({"100000", "1000000"})
+    public long rows;
+
+    @Param({"4"})
+    public int threads;
+
+    private ExecutorService executor;
+    private StudentWorkbookGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(threads);
+        generator = new StudentWorkbookGenerator(executor, threads, 10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void parallel() throws IOException {
+        generator.generate(DiscardingOutputStream.INSTANCE, rows, 42L);
+    }
+
+    /**
+     * Copy of the pre-parallel ExcelGeneratorService loop, kept as the reference point
+     */
+    @Benchmark
+    public void singleThreadedBaseline() throws IOException {
+        Random random = new Random(42L);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            Sheet sheet = workbook.createSheet("Students");
+            Row headerRow = sheet.createRow(0);
+            headerRow.createCell(0).setCellValue("studentId");
+            headerRow.createCell(1).setCellValue("firstName");
+            headerRow.createCell(2).setCellValue("lastName");
+            headerRow.createCell(3).setCellValue("DOB");
+            headerRow.createCell(4).setCellValue("class");
+            headerRow.createCell(5).setCellValue("score");
+
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(randomAlpha(random));
+                row.createCell(2).setCellValue(randomAlpha(random));
+                row.createCell(3).setCellValue(randomDate(random));
+                row.createCell(4).setCellValue(CLASSES[random.nextInt(CLASSES.length)]);
+                row.createCell(5).setCellValue(random.nextInt(21) + 55);
+            }
+
+            workbook.write(DiscardingOutputStream.INSTANCE);
+            workbook.dispose();
+        }
+    }
+
+    private static String randomAlpha(Random random) {
+        int length = random.nextInt(6) + 3;
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) (random.nextInt(26) + 'A'));
+        }
+        return sb.toString();
+    }
+
+    private static String randomDate(Random random) {
+        LocalDate startDate = LocalDate.of(2000, 1, 1);
+        LocalDate endDate = LocalDate.of(2010, 12, 31);
+        long daysBetween = endDate.toEpochDay() - startDate.toEpochDay();
+        return startDate.plusDays(random.nextInt((int) daysBetween + 1)).format(DATE_FORMATTER);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.XlsxSheetReader;
+import com.opencsv.CSVWriter;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel-to-CSV conversion throughput: {@link StudentRowDecoder} against the per-cell String
+ * path it replaced. Both read the same generated workbook from memory through
+ * {@link XlsxSheetReader} and write to a null stream, so the difference is cell decoding
+ * and CSV encoding. The "rows" counter reports rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExcelToCsvBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Param({"10000", "100000"})
+    public long rows;
+
+    private final ExcelToCsvService service = new ExcelToCsvService();
+    private byte[] workbook;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new StudentWorkbookGenerator(executor, 4, 10_000).generate(out, rows, 42L);
+            workbook = out.toByteArray();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void typed(RowCounter counter) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(workbook))) {
+            counter.rows += service.convert(pkg, DiscardingOutputStream.INSTANCE);
+        }
+    }
+
+    /**
+     * The pre-typed conversion, kept as the reference point: every cell becomes a String,
+     * dates go through java.util.Date, DOB and score are re-parsed, and OpenCSV encodes
+     * the row
+     */
+    @Benchmark
+    public void stringBaseline(RowCounter counter) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(workbook));
+             CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(DiscardingOutputStream.INSTANCE,
+                     StandardCharsets.UTF_8))) {
+            csvWriter.writeNext(ExcelToCsvService.CSV_HEADER);
+            StringRowHandler handler = new StringRowHandler(csvWriter);
+            new XlsxSheetReader(pkg).readSheet(0, handler);
+            counter.rows += handler.rowCount;
+        }
+    }
+
+    private final class StringRowHandler implements XlsxSheetReader.RowHandler {
+
+        private final CSVWriter csvWriter;
+        private final String[] cells = new String[6];
+        private int lastColumn;
+        private long rowCount;
+
+        StringRowHandler(CSVWriter csvWriter) {
+            this.csvWriter = csvWriter;
+        }
+
+        @Override
+        public void startRow(int rowIndex) {
+            Arrays.fill(cells, "");
+            lastColumn = -1;
+        }
+
+        @Override
+        public void numericCell(int column, double value, boolean date) {
+            if (column >= cells.length) {
+                return;
+            }
+            if (date) {
+                cells[column] = DateUtil.getJavaDate(value).toInstant()
+                        .atZone(ZoneId.systemDefault())
+                        .toLocalDate()
+                        .format(DATE_FORMATTER);
+            } else if (value == (int) value) {
+                cells[column] = String.valueOf((int) value);
+            } else {
+                cells[column] = String.valueOf(value);
+            }
+            lastColumn = Math.max(lastColumn, column);
+        }
+
+        @Override
+        public void stringCell(int column, String value) {
+            if (column >= cells.length) {
+                return;
+            }
+            cells[column] = value;
+            lastColumn = Math.max(lastColumn, column);
+        }
+
+        @Override
+        public void endRow(int rowIndex) {
+            if (rowIndex == 0 || lastColumn < cells.length - 1) {
+                return;
+            }
+            String[] csvRow = cells.clone();
+            csvRow[3] = service.formatDateToIso(cells[3]);
+            csvRow[5] = service.calculateNewScore(cells[5]);
+            csvWriter.writeNext(csvRow);
+            rowCount++;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export writer throughput of {@link ExportService} for each format: the OpenCSV writer,
+ * {@link StudentXlsxWriter} and {@link StudentPdfRenderer}, which also back the paged
+ * downloads of ReportController. Students come from memory and the export goes to a null
+ * stream, so only rendering and encoding are measured. The "rows" counter reports rows
+ * per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    private static final String[] CLASSES = {"Class1", "Class2", "Class3", "Class4", "Class5"};
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"CSV", "XLSX", "PDF"})
+    public ExportFormat format;
+
+    /** PDF render threads; 0 = one per available processor, as app.export.pdf-parallelism */
+    @Param({"0"})
+    public int pdfParallelism;
+
+    private final ExportService service = new ExportService();
+    private List<Student> students;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service.setPdfParallelism(pdfParallelism);
+        service.init();
+
+        Random random = new Random(42L);
+        LocalDate firstDob = LocalDate.of(2000, 1, 1);
+        students = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            students.add(new Student((long) i,
+                    "First" + random.nextInt(100_000),
+                    "Last" + random.nextInt(100_000),
+                    firstDob.plusDays(random.nextInt(3653)),
+                    CLASSES[random.nextInt(CLASSES.length)],
+                    60 + random.nextInt(31)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public void write(RowCounter counter) throws Exception {
+        counter.rows += service.write(format, callback -> {
+            for (Student student : students) {
+                callback.accept(student);
+            }
+            return students.size();
+        }, DiscardingOutputStream.INSTANCE);
+    }
+}
@@ -1,24 +1,35 @@
 package com.example.dataprocessor.controller;
 
-import com.example.dataprocessor.model.Student;
+import com.example.dataprocessor.model.BatchConversionResult;
+import com.example.dataprocessor.model.ImportResult;
+import com.example.dataprocessor.service.BatchOutput;
 import com.example.dataprocessor.service.DataProcessingService;
-import com.example.dataprocessor.service.ExportService;
+import com.example.dataprocessor.service.FileDownloadService;
+import com.example.dataprocessor.service.ImportMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api")
@@ -26,14 +37,22 @@ import java.util.Map;
 @Slf4j
 public class DataController {
     
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
     private final DataProcessingService dataProcessingService;
-    private final ExportService exportService;
+    private final FileDownloadService fileDownloadService;
     
     @PostMapping("/generate")
-    public ResponseEntity<Map<String, String>> generateExcelFile(@RequestParam int count) {
+    public ResponseEntity<Map<String, String>> generateExcelFile(
+            @RequestParam int count,
+            @RequestParam(required = false) Long seed) {
         try {
-            log.info("Generating Excel file with {} records", count);
-            String filePath = dataProcessingService.generateExcelFile(count);
+            log.info("Generating Excel file with {} records, seed: {}", count, seed);
+            String filePath = dataProcessingService.generateExcelFile(count, seed);
             String fileName = Paths.get(filePath).getFileName().toString();
             
             Map<String, String> response = new HashMap<>();
@@ -65,112 +84,195 @@ public class DataController {
         }
     }
     
+    /**
+     * POST /api/convert/batch - Convert every sheet of several uploaded workbooks, or of the
+     * workbooks in uploaded zip archives, concurrently; returns the CSV links and the time
+     * taken per file and sheet
+     */
+    @PostMapping("/convert/batch")
+    public ResponseEntity<BatchConversionResult> convertExcelBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(defaultValue = "sheets") String output) {
+        try {
+            return ResponseEntity.ok(dataProcessingService.convertExcelBatch(files, BatchOutput.fromParameter(output)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected batch conversion: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error converting Excel batch to CSV", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     @PostMapping("/upload-csv")
-    public ResponseEntity<Map<String, String>> uploadCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> uploadCsv(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "file") String mode) {
         try {
-            log.info("Uploading CSV file: {}", file.getOriginalFilename());
-            dataProcessingService.importCsvToDatabase(file);
+            log.info("Uploading CSV file: {}, mode: {}", file.getOriginalFilename(), mode);
+            ImportResult result = dataProcessingService.importCsvToDatabase(file, ImportMode.fromParameter(mode));
             
-            Map<String, String> response = new HashMap<>();
+            Map<String, Object> response = new HashMap<>();
             response.put("message", "CSV file uploaded and imported successfully");
-            response.put("recordsProcessed", "Data imported to database");
+            response.put("recordsProcessed", String.valueOf(result.getRowsImported()));
+            response.put("rowsSkipped", String.valueOf(result.getRowsSkipped()));
+            response.put("mode", result.getMode());
+            response.put("elapsedMillis", String.valueOf(result.getElapsedMillis()));
+            response.put("rowsPerSecond", String.valueOf(result.getRowsPerSecond()));
+            if (!result.getStreams().isEmpty()) {
+                response.put("streams", result.getStreams());
+            }
+            if (result.getMerge() != null) {
+                response.put("merge", result.getMerge());
+            }
             
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected CSV upload: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error uploading CSV file", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
-    @GetMapping("/students")
-    public ResponseEntity<Page<Student>> getStudents(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size,
-            @RequestParam(required = false) Long studentId,
-            @RequestParam(required = false) String clazz,
-            @RequestParam(required = false) String search) {
-        
-        log.info("Fetching students - page: {}, size: {}, studentId: {}, clazz: {}, search: {}", 
-                page, size, studentId, clazz, search);
-        
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Student> students = dataProcessingService.getStudents(studentId, clazz, search, pageable);
-        
-        return ResponseEntity.ok(students);
-    }
-    
-    @GetMapping("/students/export")
-    public ResponseEntity<Map<String, String>> exportStudents(
-            @RequestParam String format,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "100") int size,
-            @RequestParam(required = false) Long studentId,
-            @RequestParam(required = false) String clazz,
-            @RequestParam(required = false) String search) {
-        
+    @PostMapping("/ingest-excel")
+    public ResponseEntity<Map<String, String>> ingestExcel(@RequestParam("file") MultipartFile file) {
         try {
-            log.info("Exporting students - format: {}, page: {}, size: {}, studentId: {}, clazz: {}, search: {}", 
-                    format, page, size, studentId, clazz, search);
-            
-            List<Student> students = dataProcessingService.getAllStudentsForExport(studentId, clazz, search);
-            
-            String filePath;
-            switch (format.toLowerCase()) {
-                case "csv":
-                    filePath = exportService.exportToCsv(students);
-                    break;
-                case "xlsx":
-                    filePath = exportService.exportToExcel(students);
-                    break;
-                case "pdf":
-                    filePath = exportService.exportToPdf(students);
-                    break;
-                default:
-                    return ResponseEntity.badRequest().build();
-            }
-            
-            String fileName = Paths.get(filePath).getFileName().toString();
+            log.info("Ingesting Excel file: {}", file.getOriginalFilename());
+            long rowsImported = dataProcessingService.ingestExcelToDatabase(file);
             
             Map<String, String> response = new HashMap<>();
-            response.put("filePath", filePath);
-            response.put("downloadLink", "/api/download/" + fileName);
-            response.put("format", format);
-            response.put("recordCount", String.valueOf(students.size()));
+            response.put("message", "Excel file ingested into database successfully");
+            response.put("recordsProcessed", String.valueOf(rowsImported));
             
             return ResponseEntity.ok(response);
-        } catch (IOException e) {
-            log.error("Error exporting students", e);
+        } catch (Exception e) {
+            log.error("Error ingesting Excel file", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    /**
+     * GET /api/download/{fileName} - Download a generated file from the data directory.
+     * Supports a single byte range (206 / 416) and conditional requests via ETag and
+     * Last-Modified; the body is sent with sendfile where the connector supports it and
+     * through a file channel otherwise, never read into the heap. Cached exports always go
+     * through a channel opened up front, so evicting them cannot cut a download short.
+     */
     @GetMapping("/download/{fileName}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable String fileName) {
+    public void downloadFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> resolved = fileDownloadService.resolve(fileName);
+        if (!resolved.isPresent()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path filePath = resolved.get();
+        BasicFileAttributes attributes;
+        FileChannel channel = null;
         try {
-            // Use the configured data path instead of temp directory
-            Path filePath = Paths.get(System.getProperty("user.home"), "var", "log", "applications", "API", "dataprocessing", fileName);
-            if (!filePath.toFile().exists()) {
-                return ResponseEntity.notFound().build();
+            attributes = fileDownloadService.attributes(filePath);
+            if (FileDownloadService.isEvictable(fileName)) {
+                // The export cache may delete the file at any time. Holding it open from here
+                // on keeps the download intact; sendfile would only open it after we return.
+                channel = fileDownloadService.open(filePath);
             }
-            
-            byte[] fileContent = java.nio.file.Files.readAllBytes(filePath);
-            
-            String contentType = "application/octet-stream";
-            if (fileName.endsWith(".csv")) {
-                contentType = "text/csv";
-            } else if (fileName.endsWith(".xlsx")) {
-                contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-            } else if (fileName.endsWith(".pdf")) {
-                contentType = "application/pdf";
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        try {
+            send(fileName, filePath, attributes, channel, request, response);
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+    
+    /**
+     * Writes the headers and the requested range of a resolved file
+     * @param channel The file held open, or null to open it only when sending the body
+     */
+    private void send(String fileName, Path filePath, BasicFileAttributes attributes, FileChannel channel,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        
+        // Answers If-None-Match / If-Modified-Since with 304 and sets ETag and Last-Modified
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(FileDownloadService.contentType(fileName));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName).build().toString());
+        
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, etag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Several ranges are answered with the whole file, which RFC 7233 allows
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range starts past the end of the file");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+        
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+        
+        if (channel == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file from the kernel once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, filePath.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try {
+            if (channel != null) {
+                fileDownloadService.transfer(channel, start, count, response.getOutputStream());
+            } else {
+                fileDownloadService.transfer(filePath, start, count, response.getOutputStream());
             }
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                    .header("Content-Type", contentType)
-                    .body(fileContent);
         } catch (IOException e) {
-            log.error("Error downloading file: {}", fileName, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            // Mostly clients dropping the connection mid-download
+            log.debug("Download of {} aborted: {}", fileName, e.getMessage());
+        }
+    }
+    
+    /**
+     * A Range header only applies if If-Range is absent or still matches the file
+     */
+    private static boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
 }
@@ -0,0 +1,125 @@
+package com.example.dataprocessor.controller;
+
+import com.example.dataprocessor.model.Job;
+import com.example.dataprocessor.service.BatchOutput;
+import com.example.dataprocessor.service.ImportMode;
+import com.example.dataprocessor.service.JobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Background variants of the generate, convert and import endpoints. Submissions return
+ * 202 with the job id straight away; progress is polled from /api/jobs/{id}.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class JobController {
+
+    private final JobService jobService;
+
+    @PostMapping("/generate")
+    public ResponseEntity<Map<String, String>> submitGenerate(
+            @RequestParam int count,
+            @RequestParam(required = false) Long seed) {
+        try {
+            return accepted(jobService.submitGenerate(count, seed));
+        } catch (RejectedExecutionException e) {
+            return busy("generate");
+        }
+    }
+
+    @PostMapping("/convert")
+    public ResponseEntity<Map<String, String>> submitConvert(@RequestParam("file") MultipartFile file) {
+        try {
+            return accepted(jobService.submitConvert(file));
+        } catch (RejectedExecutionException e) {
+            return busy("convert");
+        } catch (IOException e) {
+            log.error("Error spooling upload for conversion: {}", file.getOriginalFilename(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/convert/batch")
+    public ResponseEntity<Map<String, String>> submitBatchConvert(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(defaultValue = "sheets") String output) {
+        try {
+            return accepted(jobService.submitBatchConvert(files, BatchOutput.fromParameter(output)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected batch conversion job: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            return busy("convert");
+        } catch (IOException e) {
+            log.error("Error spooling uploads for batch conversion", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, String>> submitImport(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "file") String mode) {
+        try {
+            return accepted(jobService.submitImport(file, ImportMode.fromParameter(mode)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected import job: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            return busy("import");
+        } catch (IOException e) {
+            log.error("Error spooling upload for import: {}", file.getOriginalFilename(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Job>> getJobs() {
+        return ResponseEntity.ok(jobService.getJobs());
+    }
+
+    /**
+     * GET /api/jobs/{id} - Status, rows processed, throughput and artifact link of a job
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Job> getJob(@PathVariable String id) {
+        return jobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * DELETE /api/jobs/{id} - Cancel a queued or running job
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Job> cancelJob(@PathVariable String id) {
+        return jobService.cancel(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<Map<String, String>> accepted(Job job) {
+        Map<String, String> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("statusLink", "/api/jobs/" + job.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    private ResponseEntity<Map<String, String>> busy(String kind) {
+        log.warn("Rejected {} job: queue is full", kind);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+}
@@ -1,17 +1,26 @@
 package com.example.dataprocessor.controller;
 
+import com.example.dataprocessor.model.CacheStats;
+import com.example.dataprocessor.model.ClassScoreDistribution;
+import com.example.dataprocessor.model.CursorPage;
+import com.example.dataprocessor.model.ExportArtifact;
+import com.example.dataprocessor.model.ScoreDistributionReport;
 import com.example.dataprocessor.model.Student;
+import com.example.dataprocessor.model.StudentCursor;
+import com.example.dataprocessor.model.StudentSortField;
 import com.example.dataprocessor.repository.StudentRepository;
-import com.opencsv.CSVWriter;
+import com.example.dataprocessor.repository.StudentSpecifications;
+import com.example.dataprocessor.service.ClassStatsService;
+import com.example.dataprocessor.service.DataProcessingService;
+import com.example.dataprocessor.service.ExportArtifactCache;
+import com.example.dataprocessor.service.ExportFormat;
+import com.example.dataprocessor.service.ExportService;
+import com.example.dataprocessor.service.PipelineMetrics;
+import com.example.dataprocessor.service.StudentQueryCache;
+import com.example.dataprocessor.service.StudentSnapshotService;
+import com.example.dataprocessor.service.StudentSource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -21,15 +30,15 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.persistence.criteria.Predicate;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -37,7 +46,16 @@ import java.util.List;
 @Slf4j
 public class ReportController {
     
+    private static final int MAX_PAGE_SIZE = 1000;
+    
     private final StudentRepository studentRepository;
+    private final DataProcessingService dataProcessingService;
+    private final ExportService exportService;
+    private final ExportArtifactCache exportArtifactCache;
+    private final StudentQueryCache studentQueryCache;
+    private final StudentSnapshotService studentSnapshotService;
+    private final ClassStatsService classStatsService;
+    private final PipelineMetrics pipelineMetrics;
     
     /**
      * GET /api/students - Retrieve paginated students with optional filtering
@@ -56,42 +74,181 @@ public class ReportController {
             @RequestParam(required = false) String clazz,
             @RequestParam(required = false) String search) {
         
-        log.info("Fetching students - page: {}, size: {}, studentId: {}, clazz: {}, search: {}", 
+        log.debug("Fetching students - page: {}, size: {}, studentId: {}, clazz: {}, search: {}", 
                 page, size, studentId, clazz, search);
         
         Pageable pageable = PageRequest.of(page, size);
         
-        // Create specification for filtering
-        Specification<Student> spec = createStudentSpecification(studentId, clazz, search);
+        Page<Student> students = dataProcessingService.getStudents(studentId, clazz, search, pageable);
+        
+        return ResponseEntity.ok(students);
+    }
+    
+    /**
+     * GET /api/students/cache - Hit, miss and eviction counts of the page query cache
+     */
+    @GetMapping("/students/cache")
+    public ResponseEntity<CacheStats> getQueryCacheStats() {
+        return ResponseEntity.ok(studentQueryCache.getStats());
+    }
+    
+    /**
+     * GET /api/students/analytics/score-distribution - Score count, range, mean and histogram
+     * per class, computed from the in-memory snapshot instead of the database
+     * @param bucketWidth Score range of each histogram bucket (default: 10)
+     * @return The report, or 503 while the snapshot is disabled or not built yet
+     */
+    @GetMapping("/students/analytics/score-distribution")
+    public ResponseEntity<ScoreDistributionReport> getScoreDistribution(
+            @RequestParam(defaultValue = "10") int bucketWidth) {
+        
+        if (bucketWidth < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return studentSnapshotService.scoreDistribution(bucketWidth)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * GET /api/students/stats - Count, mean, min/max, percentiles and histogram of the score
+     * per class, read from the summary table maintained by imports
+     * @return One entry per class, ordered by class
+     */
+    @GetMapping("/students/stats")
+    public ResponseEntity<List<ClassScoreDistribution>> getClassStats() {
+        return ResponseEntity.ok(classStatsService.getReport());
+    }
+    
+    /**
+     * POST /api/students/stats/rebuild - Recomputes the summary table from the students table
+     * @return The recomputed report
+     */
+    @PostMapping("/students/stats/rebuild")
+    public ResponseEntity<List<ClassScoreDistribution>> rebuildClassStats() {
+        return ResponseEntity.ok(classStatsService.rebuild());
+    }
+    
+    /**
+     * GET /api/students/cursor - Keyset-paginated students with optional filtering
+     * @param size Page size (default: 20, max: 1000)
+     * @param cursor Opaque nextCursor/prevCursor of a previous page; omit for the first page
+     * @param sort Sort property of the first page (default: studentId); fixed by the cursor afterwards
+     * @param direction asc or desc (default: asc)
+     * @param studentId Optional student ID filter
+     * @param clazz Optional class filter
+     * @param search Optional search term for first/last name
+     * @param includeCount Also run a count query for totalElements (default: false)
+     * @return CursorPage<Student> as JSON
+     */
+    @GetMapping("/students/cursor")
+    public ResponseEntity<CursorPage<Student>> getStudentsByCursor(
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "studentId") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) String clazz,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean includeCount) {
+        
+        log.debug("Fetching students by cursor - size: {}, sort: {} {}, studentId: {}, clazz: {}, search: {}",
+                size, sort, direction, studentId, clazz, search);
+        
+        if (size < 1 || size > MAX_PAGE_SIZE
+                || !("asc".equalsIgnoreCase(direction) || "desc".equalsIgnoreCase(direction))) {
+            return ResponseEntity.badRequest().build();
+        }
         
-        Page<Student> students = studentRepository.findAll(spec, pageable);
+        try {
+            StudentSortField sortField = StudentSortField.fromParameter(sort);
+            StudentCursor position = cursor != null && !cursor.isEmpty() ? StudentCursor.decode(cursor) : null;
+            
+            CursorPage<Student> students = dataProcessingService.getStudents(studentId, clazz, search,
+                    sortField, "asc".equalsIgnoreCase(direction), position, size, includeCount);
+            
+            return ResponseEntity.ok(students);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * GET /api/students/search - Students ranked by how well their name matches
+     * @param q Search term for first/last name
+     * @param clazz Optional class filter
+     * @param limit Maximum number of results (default: 20, max: 1000)
+     * @return Matching students, best match first
+     */
+    @GetMapping("/students/search")
+    public ResponseEntity<List<Student>> searchStudents(
+            @RequestParam String q,
+            @RequestParam(required = false) String clazz,
+            @RequestParam(defaultValue = "20") int limit) {
         
+        log.debug("Searching students - q: {}, clazz: {}, limit: {}", q, clazz, limit);
+        
+        if (q.trim().isEmpty() || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        long start = System.nanoTime();
+        List<Student> students = studentRepository.searchByName(q, clazz, limit);
+        pipelineMetrics.record(PipelineMetrics.Stage.QUERY, "search", start, students.size(), 0, 0);
         return ResponseEntity.ok(students);
     }
     
     /**
      * GET /api/students/export - Export students in various formats
      * @param format Export format (csv, xlsx, pdf)
-     * @param page Page number (default: 0)
-     * @param size Page size (default: 100)
+     * @param mode download returns one page as the response body; stream writes every matching
+     *             student straight into a chunked response as it is read; file exports every
+     *             matching student to a file in the data directory and returns its download link,
+     *             reusing the file of an earlier identical export if the data has not changed
+     * @param page Page number (default: 0), download mode only
+     * @param size Page size (default: 100), download mode only
      * @param studentId Optional student ID filter
      * @param clazz Optional class filter
      * @param search Optional search term for first/last name
-     * @return File download response
+     * @return File download response, or the export file's details in file mode
      */
     @GetMapping("/students/export")
-    public ResponseEntity<byte[]> exportStudents(
+    public ResponseEntity<?> exportStudents(
             @RequestParam String format,
+            @RequestParam(defaultValue = "download") String mode,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "100") int size,
             @RequestParam(required = false) Long studentId,
             @RequestParam(required = false) String clazz,
             @RequestParam(required = false) String search) {
         
+        if ("file".equalsIgnoreCase(mode)) {
+            try {
+                return exportStudentsToFile(ExportFormat.fromParameter(format), studentId, clazz, search);
+            } catch (IllegalArgumentException e) {
+                log.warn("Rejected export: {}", e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        if (!"download".equalsIgnoreCase(mode)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected export: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        
         try {
             log.info("Exporting students - format: {}, page: {}, size: {}, studentId: {}, clazz: {}, search: {}", 
                     format, page, size, studentId, clazz, search);
             
+            long start = System.nanoTime();
+            
             // Create specification for filtering
             Specification<Student> spec = createStudentSpecification(studentId, clazz, search);
             
@@ -100,32 +257,23 @@ public class ReportController {
             Page<Student> studentPage = studentRepository.findAll(spec, pageable);
             List<Student> students = studentPage.getContent();
             
-            byte[] fileContent;
-            String fileName;
-            String contentType;
+            // Same writers as the file and stream modes
+            StudentSource source = callback -> {
+                for (Student student : students) {
+                    callback.accept(student);
+                }
+                return students.size();
+            };
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            exportService.write(exportFormat, source, outputStream);
+            byte[] fileContent = outputStream.toByteArray();
+            String fileName = "students_export_" + System.currentTimeMillis() + "." + exportFormat.getExtension();
             
-            switch (format.toLowerCase()) {
-                case "csv":
-                    fileContent = exportToCsv(students);
-                    fileName = "students_export_" + System.currentTimeMillis() + ".csv";
-                    contentType = "text/csv";
-                    break;
-                case "xlsx":
-                    fileContent = exportToXlsx(students);
-                    fileName = "students_export_" + System.currentTimeMillis() + ".xlsx";
-                    contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-                    break;
-                case "pdf":
-                    fileContent = exportToPdf(students);
-                    fileName = "students_export_" + System.currentTimeMillis() + ".pdf";
-                    contentType = "application/pdf";
-                    break;
-                default:
-                    return ResponseEntity.badRequest().build();
-            }
+            pipelineMetrics.record(PipelineMetrics.Stage.EXPORT, exportFormat.getExtension(), start, students.size(), 0,
+                    fileContent.length);
             
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
+            headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType()));
             headers.setContentDispositionFormData("attachment", fileName);
             headers.setContentLength(fileContent.length);
             
@@ -140,173 +288,79 @@ public class ReportController {
     }
     
     /**
-     * Creates JPA Specification for filtering students
+     * Exports every matching student to a file in the data directory
      */
-    private Specification<Student> createStudentSpecification(Long studentId, String clazz, String search) {
-        return (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            
-            if (studentId != null) {
-                predicates.add(criteriaBuilder.equal(root.get("studentId"), studentId));
-            }
-            
-            if (clazz != null && !clazz.trim().isEmpty()) {
-                predicates.add(criteriaBuilder.equal(root.get("clazz"), clazz));
-            }
+    private ResponseEntity<Map<String, String>> exportStudentsToFile(ExportFormat format, Long studentId, String clazz, String search) {
+        try {
+            // Checked before any transaction is opened, so a hit does not touch the database
+            ExportArtifact artifact = exportArtifactCache.getOrExport(format, studentId, clazz, search,
+                    () -> dataProcessingService.exportStudents(format, studentId, clazz, search));
+            String fileName = Paths.get(artifact.getFilePath()).getFileName().toString();
             
-            if (search != null && !search.trim().isEmpty()) {
-                String searchPattern = "%" + search.trim().toLowerCase() + "%";
-                Predicate firstNamePredicate = criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("firstName")), searchPattern);
-                Predicate lastNamePredicate = criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("lastName")), searchPattern);
-                predicates.add(criteriaBuilder.or(firstNamePredicate, lastNamePredicate));
-            }
+            Map<String, String> response = new HashMap<>();
+            response.put("filePath", artifact.getFilePath());
+            response.put("downloadLink", "/api/download/" + fileName);
+            response.put("format", artifact.getFormat());
+            response.put("recordCount", String.valueOf(artifact.getRecordCount()));
+            response.put("cached", String.valueOf(artifact.isCached()));
             
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        };
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            log.error("Error exporting students", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
     
     /**
-     * Export students to CSV format using OpenCSV
+     * GET /api/students/export/cache - Hit, miss and eviction counts of the file export cache
      */
-    private byte[] exportToCsv(List<Student> students) throws IOException {
-        StringWriter stringWriter = new StringWriter();
-        
-        try (CSVWriter csvWriter = new CSVWriter(stringWriter)) {
-            // Write header
-            csvWriter.writeNext(new String[]{"Student ID", "First Name", "Last Name", "Date of Birth", "Class", "Score"});
-            
-            // Write data rows
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            for (Student student : students) {
-                csvWriter.writeNext(new String[]{
-                    student.getStudentId().toString(),
-                    student.getFirstName(),
-                    student.getLastName(),
-                    student.getDob() != null ? student.getDob().format(dateFormatter) : "",
-                    student.getClazz(),
-                    student.getScore() != null ? student.getScore().toString() : ""
-                });
-            }
-        }
-        
-        return stringWriter.toString().getBytes("UTF-8");
+    @GetMapping("/students/export/cache")
+    public ResponseEntity<CacheStats> getExportCacheStats() {
+        return ResponseEntity.ok(exportArtifactCache.getStats());
     }
     
     /**
-     * Export students to XLSX format using Apache POI SXSSFWorkbook
+     * GET /api/students/export?mode=stream - Streams every matching student into the response
+     * body. No Content-Length is set, so the response goes out chunked while rows are still
+     * being read from the database.
+     * @param format Export format (csv, xlsx, pdf)
+     * @param studentId Optional student ID filter
+     * @param clazz Optional class filter
+     * @param search Optional search term for first/last name
+     * @return Streamed file download response
      */
-    private byte[] exportToXlsx(List<Student> students) throws IOException {
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
-            Sheet sheet = workbook.createSheet("Students");
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("Student ID");
-            headerRow.createCell(1).setCellValue("First Name");
-            headerRow.createCell(2).setCellValue("Last Name");
-            headerRow.createCell(3).setCellValue("Date of Birth");
-            headerRow.createCell(4).setCellValue("Class");
-            headerRow.createCell(5).setCellValue("Score");
-            
-            // Write data rows
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            int rowNum = 1;
-            for (Student student : students) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(student.getStudentId());
-                row.createCell(1).setCellValue(student.getFirstName());
-                row.createCell(2).setCellValue(student.getLastName());
-                row.createCell(3).setCellValue(student.getDob() != null ? 
-                    student.getDob().format(dateFormatter) : "");
-                row.createCell(4).setCellValue(student.getClazz());
-                row.createCell(5).setCellValue(student.getScore() != null ? student.getScore() : 0);
-            }
-            
-            // Auto-size columns
-            for (int i = 0; i < 6; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            // Write to byte array
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            workbook.dispose();
-            
-            return outputStream.toByteArray();
+    @GetMapping(value = "/students/export", params = "mode=stream")
+    public ResponseEntity<StreamingResponseBody> streamStudents(
+            @RequestParam String format,
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) String clazz,
+            @RequestParam(required = false) String search) {
+        
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected export: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         }
+        
+        String fileName = "students_export_" + System.currentTimeMillis() + "." + exportFormat.getExtension();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType()));
+        headers.setContentDispositionFormData("attachment", fileName);
+        
+        StreamingResponseBody body = out -> {
+            long recordCount = dataProcessingService.streamStudents(exportFormat, studentId, clazz, search, out);
+            log.info("Streamed {} students as {}", recordCount, exportFormat);
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
     }
     
     /**
-     * Export students to PDF format using Apache PDFBox
+     * Creates JPA Specification for filtering students
      */
-    private byte[] exportToPdf(List<Student> students) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
-            
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            try {
-                // Title
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-                contentStream.newLineAtOffset(50, 750);
-                contentStream.showText("Student Data Export");
-                contentStream.endText();
-                
-                // Header row
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, 10);
-                contentStream.newLineAtOffset(50, 720);
-                contentStream.showText("Student ID | First Name | Last Name | Date of Birth | Class | Score");
-                contentStream.endText();
-                
-                // Data rows
-                DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                float yPosition = 700;
-                int recordsPerPage = 30;
-                int currentRecord = 0;
-                
-                for (Student student : students) {
-                    if (currentRecord > 0 && currentRecord % recordsPerPage == 0) {
-                        contentStream.close();
-                        PDPage newPage = new PDPage();
-                        document.addPage(newPage);
-                        contentStream = new PDPageContentStream(document, newPage);
-                        yPosition = 750;
-                    }
-                    
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA, 8);
-                    contentStream.newLineAtOffset(50, yPosition);
-                    
-                    String dobString = student.getDob() != null ? 
-                        student.getDob().format(dateFormatter) : "";
-                    String scoreString = student.getScore() != null ? 
-                        student.getScore().toString() : "0";
-                    
-                    contentStream.showText(String.format("%d | %s | %s | %s | %s | %s",
-                            student.getStudentId(),
-                            student.getFirstName(),
-                            student.getLastName(),
-                            dobString,
-                            student.getClazz(),
-                            scoreString));
-                    contentStream.endText();
-                    
-                    yPosition -= 15;
-                    currentRecord++;
-                }
-            } finally {
-                if (contentStream != null) {
-                    contentStream.close();
-                }
-            }
-            
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            document.save(outputStream);
-            return outputStream.toByteArray();
-        }
+    private Specification<Student> createStudentSpecification(Long studentId, String clazz, String search) {
+        return StudentSpecifications.filter(studentId, clazz, search);
     }
 }
@@ -0,0 +1,150 @@
+package com.example.dataprocessor.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CSV file into byte ranges that each hold whole rows.
+ *
+ * The file is scanned once, tracking quote state, so a line break inside a quoted field
+ * never becomes a split point. The header line is left out of every range.
+ */
+public final class CsvPartitioner {
+
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+
+    private CsvPartitioner() {
+    }
+
+    /**
+     * Byte range [start, end) of a CSV file
+     */
+    public static final class Range {
+
+        private final int index;
+        private final long start;
+        private final long end;
+
+        Range(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long length() {
+            return end - start;
+        }
+
+        /**
+         * Opens a stream over this range only
+         */
+        public InputStream open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(start);
+            InputStream in = Channels.newInputStream(channel);
+            return new InputStream() {
+                private long remaining = length();
+
+                @Override
+                public int read() throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int b = in.read();
+                    if (b >= 0) {
+                        remaining--;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int n = in.read(b, off, (int) Math.min(len, remaining));
+                    if (n > 0) {
+                        remaining -= n;
+                    }
+                    return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    in.close();
+                }
+            };
+        }
+    }
+
+    /**
+     * Splits the rows after the header line into at most {@code parts} ranges of similar size
+     * @param file CSV file with a header line
+     * @param parts Desired number of ranges
+     * @return Non-empty ranges in file order; empty if the file has no data rows
+     */
+    public static List<Range> split(Path file, int parts) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            List<Range> ranges = new ArrayList<>(parts);
+
+            boolean inQuotes = false;
+            long dataStart = -1;
+            long rangeStart = -1;
+            long nextTarget = -1;
+            long position = 0;
+
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b == '"') {
+                        // An escaped quote ("") toggles twice and leaves the state unchanged
+                        inQuotes = !inQuotes;
+                    } else if (b == '\n' && !inQuotes) {
+                        if (dataStart < 0) {
+                            dataStart = position;
+                            rangeStart = position;
+                            nextTarget = target(dataStart, size, parts, 1);
+                        } else if (position >= nextTarget && ranges.size() < parts - 1) {
+                            ranges.add(new Range(ranges.size(), rangeStart, position));
+                            rangeStart = position;
+                            nextTarget = target(dataStart, size, parts, ranges.size() + 1);
+                        }
+                    }
+                }
+                buffer.clear();
+            }
+
+            if (rangeStart >= 0 && rangeStart < size) {
+                ranges.add(new Range(ranges.size(), rangeStart, size));
+            }
+            return ranges;
+        }
+    }
+
+    private static long target(long dataStart, long size, int parts, int k) {
+        return dataStart + (size - dataStart) * k / parts;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.dataprocessor.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes CSV straight to UTF-8 bytes in a reusable buffer, in the layout of OpenCSV's
+ * default {@code CSVWriter}: every field quoted, quotes doubled, rows ended by "\n".
+ * Numbers and dates are rendered digit by digit, so typed values reach the output without
+ * becoming Strings first. Closing flushes but leaves the underlying stream open.
+ */
+public final class CsvRowWriter implements Closeable {
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final byte[] digits = new byte[20];
+    private int length;
+    private boolean firstField = true;
+
+    /**
+     * @param out Stream receiving the CSV
+     * @param bufferSize Bytes collected before each write to the stream
+     */
+    public CsvRowWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[Math.max(bufferSize, 64)];
+    }
+
+    /**
+     * Writes a whole row; null elements become empty unquoted fields
+     */
+    public void writeRow(String[] row) throws IOException {
+        for (String value : row) {
+            if (value == null) {
+                separator();
+            } else {
+                field(value);
+            }
+        }
+        endRow();
+    }
+
+    public void field(CharSequence value) throws IOException {
+        field(value, 0, value.length());
+    }
+
+    /**
+     * Writes {@code value[from, to)} as a quoted field
+     */
+    public void field(CharSequence value, int from, int to) throws IOException {
+        separator();
+        put((byte) '"');
+        int i = from;
+        while (i < to) {
+            int end = Utf8.fittingEnd(value, i, to, buffer.length - length);
+            if (end == i) {
+                out.write(buffer, 0, length);
+                length = 0;
+                continue;
+            }
+            length = Utf8.encode(value, i, end, buffer, length, true);
+            i = end;
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * Writes UTF-8 bytes {@code source[from, to)} as a quoted field, without decoding them
+     * @param quotesDoubled Whether the bytes come from a quoted CSV field, whose quotes are
+     *        already doubled
+     */
+    public void encodedField(ByteBuffer source, int from, int to, boolean quotesDoubled) throws IOException {
+        separator();
+        put((byte) '"');
+        if (quotesDoubled) {
+            int i = from;
+            while (i < to) {
+                if (length == buffer.length) {
+                    out.write(buffer, 0, length);
+                    length = 0;
+                }
+                // Copies as much as fits without checking the buffer per byte
+                int end = i + Math.min(to - i, buffer.length - length);
+                while (i < end) {
+                    buffer[length++] = source.get(i++);
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                byte b = source.get(i);
+                if (b == '"') {
+                    put((byte) '"');
+                }
+                put(b);
+            }
+        }
+        put((byte) '"');
+    }
+
+    public void field(long value) throws IOException {
+        separator();
+        put((byte) '"');
+        decimal(value);
+        put((byte) '"');
+    }
+
+    /**
+     * Writes a date as yyyy-MM-dd
+     */
+    public void dateField(int year, int month, int day) throws IOException {
+        separator();
+        put((byte) '"');
+        padded(year, 4);
+        put((byte) '-');
+        padded(month, 2);
+        put((byte) '-');
+        padded(day, 2);
+        put((byte) '"');
+    }
+
+    public void endRow() throws IOException {
+        put((byte) '\n');
+        firstField = true;
+    }
+
+    public void flush() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            put((byte) ',');
+        }
+        firstField = false;
+    }
+
+    private void decimal(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            // Has no positive counterpart
+            String text = Long.toString(value);
+            for (int i = 0; i < text.length(); i++) {
+                put((byte) text.charAt(i));
+            }
+            return;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start; i < digits.length; i++) {
+            put(digits[i]);
+        }
+    }
+
+    private void padded(int value, int width) throws IOException {
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int pad = digits.length - start; pad < width; pad++) {
+            put((byte) '0');
+        }
+        for (int i = start; i < digits.length; i++) {
+            put(digits[i]);
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (length == buffer.length) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+        buffer[length++] = b;
+    }
+}
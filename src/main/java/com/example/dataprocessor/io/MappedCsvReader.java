@@ -0,0 +1,276 @@
+package com.example.dataprocessor.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a UTF-8 CSV file row by row from a memory-mapped window, without decoding it.
+ *
+ * Separators, quotes and line breaks are found at the byte level, and each field of the
+ * current row is only a [start, end) slice of the window: quoted fields exclude their
+ * enclosing quotes and keep doubled quotes as they are. Fields are turned into numbers,
+ * compared or copied from those slices, so reading a row allocates nothing; only
+ * {@link #getString(int)} creates a String. Quoting follows RFC 4180: a quoted field may
+ * hold separators and line breaks, and rows end with "\n" or "\r\n". Unlike OpenCSV's
+ * default parser, which the other import modes use, a backslash is an ordinary character
+ * and not an escape: a value written as {@code "a\""b"} (by {@link CsvRowWriter} or
+ * OpenCSV's writer) reads back as {@code a\"b} here, while that parser rejects the row.
+ * A "\r\n" inside quotes is also kept as it is, where OpenCSV turns it into "\n".
+ * Text after a closing quote is dropped, and an unterminated quote runs to the end of
+ * the file. The window is {@value #WINDOW_BYTES} bytes and moves forward to the start of
+ * a row that does not fit; it grows for rows longer than that.
+ */
+public final class MappedCsvReader implements Closeable {
+
+    static final int WINDOW_BYTES = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowBytes;
+    private ByteBuffer window;
+    private long windowStart;
+    private int position;
+
+    private int fieldCount;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private long rowNumber;
+
+    public MappedCsvReader(Path file) throws IOException {
+        this(file, WINDOW_BYTES);
+    }
+
+    MappedCsvReader(Path file, int windowBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+        map(0, windowBytes);
+    }
+
+    /**
+     * Moves to the next row
+     * @return false at the end of the file
+     */
+    public boolean next() throws IOException {
+        if (windowStart + position >= size) {
+            return false;
+        }
+        int mapped = window.limit();
+        while (!scanRow()) {
+            // The row runs past the window: map again from its start, larger if it already was there
+            long rowStart = windowStart + position;
+            int length = rowStart == windowStart ? (int) Math.min(Integer.MAX_VALUE, mapped * 2L) : mapped;
+            map(rowStart, length);
+            mapped = length;
+        }
+        rowNumber++;
+        return true;
+    }
+
+    /**
+     * @return 1-based number of the current row, counting the header
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return Whether the field was enclosed in quotes, so that its quotes are doubled
+     */
+    public boolean isQuoted(int field) {
+        return quoted[field];
+    }
+
+    /**
+     * @return The field decoded from UTF-8, doubled quotes undone
+     */
+    public String getString(int field) {
+        byte[] bytes = getBytes(field);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        return quoted[field] && value.indexOf('"') >= 0 ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * @return A copy of the field's bytes, doubled quotes kept
+     */
+    public byte[] getBytes(int field) {
+        byte[] bytes = new byte[ends[field] - starts[field]];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = window.get(starts[field] + i);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Whether the field holds exactly {@code bytes} and was quoted as given
+     */
+    public boolean fieldEquals(int field, byte[] bytes, boolean fieldQuoted) {
+        int start = starts[field];
+        if (quoted[field] != fieldQuoted || ends[field] - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (window.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the field as a decimal int, as {@link Integer#parseInt(String)} does after
+     * trimming
+     * @throws NumberFormatException if the field is not an int
+     */
+    public int parseInt(int field) {
+        int from = starts[field];
+        int to = ends[field];
+        while (from < to && (window.get(from) & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (window.get(to - 1) & 0xFF) <= ' ') {
+            to--;
+        }
+        boolean negative = false;
+        if (from < to && (window.get(from) == '-' || window.get(from) == '+')) {
+            negative = window.get(from) == '-';
+            from++;
+        }
+        if (from == to || to - from > 10) {
+            throw new NumberFormatException("Not an int: " + getString(field));
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not an int: " + getString(field));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Not an int: " + getString(field));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Copies the field's bytes to a writer as a quoted field
+     */
+    public void copyTo(int field, CsvRowWriter writer) throws IOException {
+        writer.encodedField(window, starts[field], ends[field], quoted[field]);
+    }
+
+    /**
+     * Releases the file; the window is unmapped once unreachable
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long start, int length) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length, size - start));
+        windowStart = start;
+        position = 0;
+    }
+
+    /**
+     * Splits the row at the current position into fields
+     * @return false if the row may continue past the window, which is left unchanged then
+     */
+    private boolean scanRow() {
+        ByteBuffer bytes = window;
+        int limit = bytes.limit();
+        boolean atEnd = windowStart + limit == size;
+        int p = position;
+        fieldCount = 0;
+        while (true) {
+            int start;
+            int end;
+            boolean fieldQuoted = p < limit && bytes.get(p) == '"';
+            if (fieldQuoted) {
+                start = ++p;
+                while (true) {
+                    if (p == limit) {
+                        if (!atEnd) {
+                            return false;
+                        }
+                        // Unterminated quote: the field runs to the end of the file
+                        end = p;
+                        break;
+                    }
+                    if (bytes.get(p) == '"') {
+                        if (p + 1 == limit && !atEnd) {
+                            return false;
+                        }
+                        if (p + 1 < limit && bytes.get(p + 1) == '"') {
+                            p += 2;
+                            continue;
+                        }
+                        end = p++;
+                        break;
+                    }
+                    p++;
+                }
+                // Anything between the closing quote and the next separator is dropped
+                while (p < limit && !isDelimiter(bytes.get(p))) {
+                    p++;
+                }
+            } else {
+                start = p;
+                while (p < limit && !isDelimiter(bytes.get(p))) {
+                    p++;
+                }
+                end = p;
+            }
+            if (p == limit && !atEnd) {
+                return false;
+            }
+            addField(start, end, fieldQuoted);
+
+            if (p == limit) {
+                position = p;
+                return true;
+            }
+            byte delimiter = bytes.get(p++);
+            if (delimiter == ',') {
+                continue;
+            }
+            if (delimiter == '\r' && p < limit && bytes.get(p) == '\n') {
+                p++;
+            } else if (delimiter == '\r' && p == limit && !atEnd) {
+                return false;
+            }
+            position = p;
+            return true;
+        }
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '\n' || b == '\r';
+    }
+
+    private void addField(int start, int end, boolean fieldQuoted) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            quoted = Arrays.copyOf(quoted, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = fieldQuoted;
+        fieldCount++;
+    }
+}
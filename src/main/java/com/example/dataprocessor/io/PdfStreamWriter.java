@@ -0,0 +1,165 @@
+package com.example.dataprocessor.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a PDF document page by page straight into a stream.
+ *
+ * Every page is one content stream plus a small page object, written as soon as it is
+ * added; only the object offsets are kept for the cross-reference table written at the
+ * end. All pages share the US Letter media box and two standard fonts, Helvetica as
+ * {@value #REGULAR_FONT} and Helvetica-Bold as {@value #BOLD_FONT}, both WinAnsi encoded,
+ * so no font data has to be embedded. Closing the writer finishes the document but leaves
+ * the underlying stream open.
+ */
+public class PdfStreamWriter implements Closeable {
+
+    public static final String REGULAR_FONT = "F1";
+    public static final String BOLD_FONT = "F2";
+
+    public static final float PAGE_WIDTH = 612;
+    public static final float PAGE_HEIGHT = 792;
+
+    private static final int CATALOG_ID = 1;
+    private static final int PAGES_ID = 2;
+    private static final int REGULAR_FONT_ID = 3;
+    private static final int BOLD_FONT_ID = 4;
+    private static final int FIRST_PAGE_ID = 5;
+
+    private final CountingOutputStream out;
+    private long[] offsets = new long[64];
+    private int nextId = 1;
+    private int pageCount;
+    private boolean closed;
+
+    /**
+     * @param out Stream receiving the document, not closed by this writer
+     */
+    public PdfStreamWriter(OutputStream out) throws IOException {
+        this.out = new CountingOutputStream(new BufferedOutputStream(out, 64 * 1024));
+
+        // The binary comment marks the file as binary for transfer tools
+        writeText("%PDF-1.4\n%âãÏÓ\n");
+        beginObject(CATALOG_ID);
+        writeText("<< /Type /Catalog /Pages " + PAGES_ID + " 0 R >>\nendobj\n");
+        beginObject(REGULAR_FONT_ID);
+        writeText("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+        beginObject(BOLD_FONT_ID);
+        writeText("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>\nendobj\n");
+        nextId = FIRST_PAGE_ID;
+    }
+
+    /**
+     * Appends a page
+     * @param content Page content stream
+     * @param length Bytes of content to use
+     * @param deflated Whether the content is already compressed with FlateDecode
+     */
+    public void addPage(byte[] content, int length, boolean deflated) throws IOException {
+        int contentId = nextId++;
+        int pageId = nextId++;
+
+        beginObject(contentId);
+        writeText("<< /Length " + length + (deflated ? " /Filter /FlateDecode" : "") + " >>\nstream\n");
+        out.write(content, 0, length);
+        writeText("\nendstream\nendobj\n");
+
+        beginObject(pageId);
+        writeText("<< /Type /Page /Parent " + PAGES_ID + " 0 R /Contents " + contentId + " 0 R >>\nendobj\n");
+        pageCount++;
+    }
+
+    public int pageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Writes the page tree, cross-reference table and trailer
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (pageCount == 0) {
+            // A document needs at least one page
+            byte[] empty = new byte[0];
+            addPage(empty, 0, false);
+        }
+
+        // Media box and fonts are inherited by every page from the page tree
+        beginObject(PAGES_ID);
+        StringBuilder pages = new StringBuilder(64 + pageCount * 10)
+                .append("<< /Type /Pages /Count ").append(pageCount)
+                .append(" /MediaBox [0 0 ").append((int) PAGE_WIDTH).append(' ').append((int) PAGE_HEIGHT).append(']')
+                .append(" /Resources << /Font << /").append(REGULAR_FONT).append(' ').append(REGULAR_FONT_ID)
+                .append(" 0 R /").append(BOLD_FONT).append(' ').append(BOLD_FONT_ID).append(" 0 R >> >>")
+                .append(" /Kids [");
+        for (int i = 0; i < pageCount; i++) {
+            // Pages are the second object of each (content, page) pair
+            pages.append(FIRST_PAGE_ID + i * 2 + 1).append(" 0 R ");
+        }
+        pages.append("] >>\nendobj\n");
+        writeText(pages.toString());
+
+        long xref = out.count;
+        StringBuilder table = new StringBuilder(32 + nextId * 20)
+                .append("xref\n0 ").append(nextId).append('\n')
+                .append("0000000000 65535 f \n");
+        for (int id = 1; id < nextId; id++) {
+            String offset = Long.toString(offsets[id]);
+            for (int pad = offset.length(); pad < 10; pad++) {
+                table.append('0');
+            }
+            table.append(offset).append(" 00000 n \n");
+        }
+        table.append("trailer\n<< /Size ").append(nextId).append(" /Root ").append(CATALOG_ID).append(" 0 R >>\n")
+                .append("startxref\n").append(xref).append("\n%%EOF\n");
+        writeText(table.toString());
+        // Flush only: the caller owns the stream
+        out.flush();
+    }
+
+    private void beginObject(int id) throws IOException {
+        if (id >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, id + 1));
+        }
+        offsets[id] = out.count;
+        writeText(id + " 0 obj\n");
+    }
+
+    private void writeText(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Tracks the byte position for the cross-reference table
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.dataprocessor.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes rows in PostgreSQL's binary COPY format, for {@code COPY ... FROM STDIN WITH
+ * (FORMAT binary)}.
+ *
+ * Values are encoded big-endian from typed fields into a reusable buffer: int8 and int4
+ * as 8 and 4 bytes, dates as days since 2000-01-01, text as UTF-8. The server stores them
+ * without parsing any text. Every row has to write the number of fields announced by
+ * {@link #startRow(int)}, in the column order of the COPY statement and with the column
+ * types. Closing writes the trailer and flushes but leaves the underlying stream open.
+ */
+public final class PgBinaryCopyWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    /** Epoch day of 2000-01-01, day 0 of PostgreSQL dates */
+    private static final long PG_EPOCH_DAY = 10957;
+
+    private final OutputStream out;
+    private final ByteBuffer buffer;
+
+    /**
+     * Starts the stream with the file header
+     * @param out Stream receiving the COPY data
+     * @param bufferSize Bytes collected before each write to the stream
+     */
+    public PgBinaryCopyWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 64));
+        // No flags, no header extension
+        buffer.put(SIGNATURE).putInt(0).putInt(0);
+    }
+
+    public void startRow(int fieldCount) throws IOException {
+        ensure(2);
+        buffer.putShort((short) fieldCount);
+    }
+
+    public void int8(long value) throws IOException {
+        ensure(12);
+        buffer.putInt(8).putLong(value);
+    }
+
+    public void int4(int value) throws IOException {
+        ensure(8);
+        buffer.putInt(4).putInt(value);
+    }
+
+    /**
+     * Writes a date column value
+     * @param epochDay Days since 1970-01-01, as {@link java.time.LocalDate#toEpochDay()}
+     */
+    public void date(long epochDay) throws IOException {
+        int4(Math.toIntExact(epochDay - PG_EPOCH_DAY));
+    }
+
+    public void nullField() throws IOException {
+        ensure(4);
+        buffer.putInt(-1);
+    }
+
+    /**
+     * Writes a text, varchar or char column value as UTF-8
+     */
+    public void text(CharSequence value) throws IOException {
+        int length = value.length();
+        if (4L + (long) Utf8.MAX_BYTES_PER_CHAR * length > buffer.capacity()) {
+            // Longer than any buffer could take at worst: encode it on its own
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            ensure(4);
+            buffer.putInt(bytes.length);
+            flushBuffer();
+            out.write(bytes);
+            return;
+        }
+        // Room for the worst case, so the length can be filled in after the bytes
+        ensure(4 + Utf8.MAX_BYTES_PER_CHAR * length);
+        int lengthAt = buffer.position();
+        buffer.putInt(0);
+        // The Buffer cast keeps the call Java 8 compatible
+        ((Buffer) buffer).position(Utf8.encode(value, 0, length, buffer.array(), buffer.position(), false));
+        buffer.putInt(lengthAt, buffer.position() - lengthAt - 4);
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Writes the trailer and flushes
+     */
+    @Override
+    public void close() throws IOException {
+        ensure(2);
+        buffer.putShort((short) -1);
+        flush();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() > 0) {
+            out.write(buffer.array(), 0, buffer.position());
+            // The Buffer cast keeps the call Java 8 compatible
+            ((Buffer) buffer).clear();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.dataprocessor.io;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared-strings table of a workbook that moves to memory-mapped files once it grows large.
+ *
+ * Strings are parsed from the sharedStrings part with SAX and kept on the heap until their
+ * estimated size passes the spill threshold. From then on every string, including those
+ * already read, is written as UTF-8 to a temp data file, with its start offset in a second
+ * file; both are mapped read-only once the part is parsed. Heap use is then independent of
+ * the table size, and the page cache keeps the strings that are looked up often. Lookups
+ * only read, so several threads may share a table. {@link #close()} deletes the files.
+ */
+public class SpillableSharedStrings implements SharedStrings, Closeable {
+
+    /** Largest file region mapped as one buffer */
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    /** Rough heap cost of a String besides its characters */
+    private static final int STRING_OVERHEAD = 56;
+
+    private int count;
+    private List<String> strings = new ArrayList<>();
+    private long heapBytes;
+
+    private Path dataFile;
+    private Path offsetsFile;
+    private DataOutputStream dataOut;
+    private DataOutputStream offsetsOut;
+    private long dataLength;
+    private int spilledCount;
+    private ByteBuffer[] segments;
+    private ByteBuffer offsets;
+
+    private SpillableSharedStrings() {
+    }
+
+    /**
+     * Reads the shared-strings table of a workbook
+     * @param pkg Opened workbook package
+     * @param spillBytes Estimated heap size beyond which the strings move to mapped files;
+     *        0 or less keeps them on the heap
+     * @param tempDir Directory for the spill files
+     */
+    public static SpillableSharedStrings load(OPCPackage pkg, long spillBytes, Path tempDir) throws IOException {
+        SpillableSharedStrings table = new SpillableSharedStrings();
+        try {
+            List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+            if (!parts.isEmpty()) {
+                try (InputStream in = parts.get(0).getInputStream()) {
+                    XMLReader xmlReader = XMLHelper.newXMLReader();
+                    xmlReader.setContentHandler(table.new TableHandler(spillBytes, tempDir));
+                    xmlReader.parse(new InputSource(in));
+                }
+            }
+            table.finish();
+            return table;
+        } catch (SAXException | ParserConfigurationException e) {
+            table.close();
+            throw new IOException("Failed to parse shared strings: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            table.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Whether the strings live in mapped files rather than on the heap
+     */
+    public boolean isSpilled() {
+        return segments != null;
+    }
+
+    /**
+     * @return The string at a 0-based index of the table
+     */
+    public String getString(int index) {
+        if (strings != null) {
+            return strings.get(index);
+        }
+        if (index < 0 || index >= spilledCount) {
+            throw new IndexOutOfBoundsException("Shared string " + index + " of " + spilledCount);
+        }
+        long start = offsets.getLong(index * 8);
+        long end = index + 1 < spilledCount ? offsets.getLong((index + 1) * 8) : dataLength;
+        byte[] bytes = new byte[(int) (end - start)];
+        int copied = 0;
+        while (copied < bytes.length) {
+            long position = start + copied;
+            // Duplicates keep the shared buffers' positions untouched for other threads;
+            // the Buffer cast keeps the call Java 8 compatible
+            ByteBuffer segment = segments[(int) (position / SEGMENT_BYTES)].duplicate();
+            ((Buffer) segment).position((int) (position % SEGMENT_BYTES));
+            int length = Math.min(bytes.length - copied, segment.remaining());
+            segment.get(bytes, copied, length);
+            copied += length;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public RichTextString getItemAt(int index) {
+        return new XSSFRichTextString(getString(index));
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public int getUniqueCount() {
+        return strings != null ? strings.size() : spilledCount;
+    }
+
+    /**
+     * Deletes the spill files; the mappings are released once the table is unreachable
+     */
+    @Override
+    public void close() throws IOException {
+        closeStreams();
+        segments = null;
+        offsets = null;
+        if (dataFile != null) {
+            Files.deleteIfExists(dataFile);
+        }
+        if (offsetsFile != null) {
+            Files.deleteIfExists(offsetsFile);
+        }
+    }
+
+    private void add(String value, long spillBytes, Path tempDir) throws IOException {
+        if (strings != null) {
+            strings.add(value);
+            heapBytes += STRING_OVERHEAD + 2L * value.length();
+            if (spillBytes > 0 && heapBytes > spillBytes) {
+                spill(tempDir);
+            }
+            return;
+        }
+        write(value);
+    }
+
+    private void spill(Path tempDir) throws IOException {
+        dataFile = Files.createTempFile(tempDir, "sst_", ".data");
+        offsetsFile = Files.createTempFile(tempDir, "sst_", ".offsets");
+        dataOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile), 64 * 1024));
+        offsetsOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetsFile), 64 * 1024));
+        List<String> held = strings;
+        strings = null;
+        heapBytes = 0;
+        for (String value : held) {
+            write(value);
+        }
+    }
+
+    private void write(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        offsetsOut.writeLong(dataLength);
+        dataOut.write(bytes);
+        dataLength += bytes.length;
+        spilledCount++;
+    }
+
+    private void finish() throws IOException {
+        if (strings != null) {
+            return;
+        }
+        closeStreams();
+        if ((long) spilledCount * 8 > Integer.MAX_VALUE) {
+            throw new IOException("Too many shared strings to map: " + spilledCount);
+        }
+        try (FileChannel channel = FileChannel.open(offsetsFile, StandardOpenOption.READ)) {
+            offsets = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) spilledCount * 8);
+        }
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            int segmentCount = (int) Math.max(1, (dataLength + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+            segments = new ByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long position = i * SEGMENT_BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_BYTES, dataLength - position));
+            }
+        }
+    }
+
+    private void closeStreams() throws IOException {
+        OutputStream data = dataOut;
+        OutputStream offsetsData = offsetsOut;
+        dataOut = null;
+        offsetsOut = null;
+        try {
+            if (data != null) {
+                data.close();
+            }
+        } finally {
+            if (offsetsData != null) {
+                offsetsData.close();
+            }
+        }
+    }
+
+    /**
+     * Decodes the _xHHHH_ escapes Excel uses for characters XML cannot carry, as
+     * {@link XSSFRichTextString#getString()} does
+     */
+    static String decodeEscapes(String value) {
+        int escape = value.indexOf("_x");
+        if (escape < 0) {
+            return value;
+        }
+        StringBuilder decoded = new StringBuilder(value.length());
+        int from = 0;
+        while (escape >= 0) {
+            int end = escape + 7;
+            if (end <= value.length() && value.charAt(end - 1) == '_' && isHex(value, escape + 2, end - 1)) {
+                decoded.append(value, from, escape).append((char) Integer.parseInt(value.substring(escape + 2, end - 1), 16));
+                from = end;
+                escape = value.indexOf("_x", end);
+            } else {
+                escape = value.indexOf("_x", escape + 1);
+            }
+        }
+        return decoded.append(value, from, value.length()).toString();
+    }
+
+    private static boolean isHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * SAX handler for the sst part: one entry per si, the text of its runs concatenated,
+     * phonetic runs left out
+     */
+    private final class TableHandler extends DefaultHandler {
+
+        private final long spillBytes;
+        private final Path tempDir;
+        private final StringBuilder text = new StringBuilder(64);
+        private boolean inItem;
+        private boolean inPhonetic;
+        private boolean capturing;
+
+        TableHandler(long spillBytes, Path tempDir) {
+            this.spillBytes = spillBytes;
+            this.tempDir = tempDir;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "sst":
+                    String total = attributes.getValue("count");
+                    count = total != null ? Integer.parseInt(total) : 0;
+                    break;
+                case "si":
+                    text.setLength(0);
+                    inItem = true;
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    capturing = inItem && !inPhonetic;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturing) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "t":
+                    capturing = false;
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "si":
+                    inItem = false;
+                    try {
+                        add(decodeEscapes(text.toString()), spillBytes, tempDir);
+                    } catch (IOException e) {
+                        throw new SAXException("Failed to spill shared strings", e);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
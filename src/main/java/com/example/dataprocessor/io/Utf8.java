@@ -0,0 +1,61 @@
+package com.example.dataprocessor.io;
+
+/**
+ * UTF-8 encoding of chars straight into a byte array, shared by the CSV and binary COPY
+ * writers so surrogates are handled in one place
+ */
+final class Utf8 {
+
+    /** Most bytes a char takes; a surrogate pair takes four for its two chars */
+    static final int MAX_BYTES_PER_CHAR = 3;
+
+    private Utf8() {
+    }
+
+    /**
+     * Encodes {@code value[from, to)} into {@code dest} from {@code offset}, which must have
+     * room for {@link #MAX_BYTES_PER_CHAR} bytes per char
+     * @param doubleQuotes Whether to write '"' twice, as in quoted CSV fields
+     * @return Offset after the last byte written
+     */
+    static int encode(CharSequence value, int from, int to, byte[] dest, int offset, boolean doubleQuotes) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' && doubleQuotes) {
+                    dest[offset++] = '"';
+                }
+                dest[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                dest[offset++] = (byte) (0xC0 | (c >> 6));
+                dest[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                dest[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                dest[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                dest[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                dest[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, encoded as '?' like String.getBytes
+                dest[offset++] = '?';
+            } else {
+                dest[offset++] = (byte) (0xE0 | (c >> 12));
+                dest[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dest[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * End of the longest part of {@code value[from, to)} that surely fits in {@code room}
+     * bytes, not splitting a surrogate pair; may be {@code from} if the room is too small
+     */
+    static int fittingEnd(CharSequence value, int from, int to, int room) {
+        int end = from + Math.min(to - from, room / MAX_BYTES_PER_CHAR);
+        if (end > from && end < to && Character.isHighSurrogate(value.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.dataprocessor.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Renders worksheet rows as SpreadsheetML into a reusable byte buffer.
+ *
+ * Strings are written as inline strings, so no shared-strings table has to be kept,
+ * and cells carry explicit references so streaming readers can place them. The buffer
+ * is handed to {@link XlsxStreamWriter} as-is, which lets rows be rendered on one thread
+ * and written on another.
+ */
+public final class XlsxRowEncoder {
+
+    private static final byte[] ROW_START = ascii("<row r=\"");
+    private static final byte[] TAG_END = ascii("\">");
+    private static final byte[] ROW_END = ascii("</row>");
+    private static final byte[] CELL_START = ascii("<c r=\"");
+    private static final byte[] VALUE_START = ascii("\"><v>");
+    private static final byte[] DATE_VALUE_START = ascii("\" s=\"" + XlsxStreamWriter.DATE_STYLE + "\"><v>");
+    private static final byte[] VALUE_END = ascii("</v></c>");
+    private static final byte[] INLINE_START = ascii("\" t=\"inlineStr\"><is><t>");
+    private static final byte[] INLINE_END = ascii("</t></is></c>");
+
+    /** Excel serial day number of 1970-01-01 in the 1900 date system */
+    private static final int EPOCH_SERIAL = 25569;
+
+    private byte[] buffer;
+    private int length;
+    private int rowNum;
+    private int column;
+
+    public XlsxRowEncoder(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 256)];
+    }
+
+    /**
+     * Starts a row
+     * @param rowNum 1-based row number within the sheet
+     */
+    public void startRow(int rowNum) {
+        this.rowNum = rowNum;
+        this.column = 0;
+        write(ROW_START);
+        writeDecimal(rowNum);
+        write(TAG_END);
+    }
+
+    public void endRow() {
+        write(ROW_END);
+    }
+
+    public void numberCell(long value) {
+        cellReference();
+        write(VALUE_START);
+        writeDecimal(value);
+        write(VALUE_END);
+    }
+
+    public void numberCell(double value) {
+        if (value == (long) value) {
+            numberCell((long) value);
+            return;
+        }
+        cellReference();
+        write(VALUE_START);
+        writeAscii(Double.toString(value));
+        write(VALUE_END);
+    }
+
+    /**
+     * Writes a date as a serial number with the workbook's date style
+     * @param epochDay Days since 1970-01-01
+     */
+    public void dateCell(long epochDay) {
+        cellReference();
+        write(DATE_VALUE_START);
+        writeDecimal(epochDay + EPOCH_SERIAL);
+        write(VALUE_END);
+    }
+
+    /**
+     * Writes an inline string cell; a null value leaves the cell empty
+     */
+    public void stringCell(CharSequence value) {
+        if (value == null) {
+            emptyCell();
+            return;
+        }
+        cellReference();
+        write(INLINE_START);
+        for (int i = 0; i < value.length(); i++) {
+            i = writeEscaped(value, i);
+        }
+        write(INLINE_END);
+    }
+
+    public void stringCell(char[] chars, int offset, int count) {
+        cellReference();
+        write(INLINE_START);
+        for (int i = offset; i < offset + count; i++) {
+            writeEscaped(chars[i]);
+        }
+        write(INLINE_END);
+    }
+
+    public void emptyCell() {
+        column++;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Escapes text for use in XML content or attribute values
+     */
+    public static String escape(String text) {
+        XlsxRowEncoder encoder = new XlsxRowEncoder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            i = encoder.writeEscaped(text, i);
+        }
+        return new String(encoder.buffer, 0, encoder.length, StandardCharsets.UTF_8);
+    }
+
+    private void cellReference() {
+        write(CELL_START);
+        // Column letters are bijective base 26: A..Z, AA..ZZ, AAA..
+        int n = ++column;
+        ensureCapacity(3);
+        int start = length;
+        while (n > 0) {
+            n--;
+            buffer[length++] = (byte) ('A' + n % 26);
+            n /= 26;
+        }
+        reverse(start, length - 1);
+        writeDecimal(rowNum);
+    }
+
+    private int writeEscaped(CharSequence value, int index) {
+        char c = value.charAt(index);
+        if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            ensureCapacity(4);
+            buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 1;
+        }
+        writeEscaped(c);
+        return index;
+    }
+
+    private void writeEscaped(char c) {
+        switch (c) {
+            case '<':
+                writeAscii("&lt;");
+                return;
+            case '>':
+                writeAscii("&gt;");
+                return;
+            case '&':
+                writeAscii("&amp;");
+                return;
+            case '"':
+                writeAscii("&quot;");
+                return;
+            default:
+                break;
+        }
+        if (c < 0x80) {
+            // Control characters other than tab/CR/LF are not allowed in XML 1.0
+            if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                writeByte(c);
+            }
+        } else if (c < 0x800) {
+            ensureCapacity(2);
+            buffer[length++] = (byte) (0xC0 | (c >> 6));
+            buffer[length++] = (byte) (0x80 | (c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            ensureCapacity(3);
+            buffer[length++] = (byte) (0xE0 | (c >> 12));
+            buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (c & 0x3F));
+        }
+        // Unpaired surrogates are dropped
+    }
+
+    private void writeDecimal(long value) {
+        if (value < 0) {
+            writeByte('-');
+            if (value == Long.MIN_VALUE) {
+                writeAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        ensureCapacity(20);
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        // Digits were written least significant first
+        reverse(start, length - 1);
+    }
+
+    private void reverse(int from, int to) {
+        for (int i = from, j = to; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    private void writeAscii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.dataprocessor.io;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams the rows of an XLSX worksheet through POI's SAX event model.
+ *
+ * Only the row currently being parsed is held in memory; cell values are handed to a
+ * {@link RowHandler} as raw numbers and strings, with numeric cells flagged when their
+ * style is a date format. Strings referenced from the shared-strings table are resolved
+ * through the {@link SharedStrings} given at construction. Shared strings and styles are
+ * only read after construction, so threads may read different sheets through one reader
+ * as long as the package is opened read-only.
+ */
+public class XlsxSheetReader implements Closeable {
+
+    /**
+     * Receives the cells of a worksheet in document order
+     */
+    public interface RowHandler {
+
+        /**
+         * @param rowIndex 0-based row index
+         */
+        void startRow(int rowIndex);
+
+        /**
+         * @param column 0-based column index
+         * @param value Cell value; Excel serial day number when {@code date} is set
+         * @param date Whether the cell style is a date format
+         */
+        void numericCell(int column, double value, boolean date);
+
+        void stringCell(int column, String value);
+
+        /**
+         * Text written in the sheet itself (inline strings, formula results, error codes).
+         * The characters are only valid during the call; handlers that can consume them
+         * directly avoid a String per cell.
+         */
+        default void textCell(int column, CharSequence value) {
+            stringCell(column, value.toString());
+        }
+
+        void endRow(int rowIndex);
+    }
+
+    private final XSSFReader reader;
+    private final SharedStrings sharedStrings;
+    private final StylesTable styles;
+
+    /** Table created and owned by this reader, looked up without rich-text wrappers */
+    private final SpillableSharedStrings ownedStrings;
+
+    /**
+     * Opens a reader that keeps the shared-strings table in heap
+     */
+    public XlsxSheetReader(OPCPackage pkg) throws IOException {
+        this(pkg, null);
+    }
+
+    /**
+     * @param pkg Opened workbook package
+     * @param sharedStrings Shared-strings lookup, or null to load the package's table in heap
+     */
+    public XlsxSheetReader(OPCPackage pkg, SharedStrings sharedStrings) throws IOException {
+        this(pkg, sharedStrings, null);
+    }
+
+    /**
+     * Opens a reader whose shared-strings table moves to memory-mapped temp files once its
+     * estimated heap size passes {@code spillBytes}; {@link #close()} deletes the files
+     * @param pkg Opened workbook package
+     * @param spillBytes Spill threshold in bytes; 0 or less keeps the table in heap
+     */
+    public XlsxSheetReader(OPCPackage pkg, long spillBytes) throws IOException {
+        this(pkg, null, SpillableSharedStrings.load(pkg, spillBytes, Paths.get(System.getProperty("java.io.tmpdir"))));
+    }
+
+    private XlsxSheetReader(OPCPackage pkg, SharedStrings sharedStrings, SpillableSharedStrings ownedStrings) throws IOException {
+        try {
+            this.reader = new XSSFReader(pkg);
+            this.ownedStrings = ownedStrings;
+            if (ownedStrings != null) {
+                this.sharedStrings = ownedStrings;
+            } else {
+                this.sharedStrings = sharedStrings != null ? sharedStrings : new ReadOnlySharedStringsTable(pkg, false);
+            }
+            this.styles = reader.getStylesTable();
+        } catch (OpenXML4JException | SAXException e) {
+            if (ownedStrings != null) {
+                ownedStrings.close();
+            }
+            throw new IOException("Failed to open workbook: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Names of the worksheets, in workbook order
+     */
+    public List<String> sheetNames() throws IOException {
+        List<String> names = new ArrayList<>();
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                // The name is read from the workbook part; the sheet stream itself is not needed
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+        } catch (OpenXML4JException e) {
+            throw new IOException("Failed to list sheets: " + e.getMessage(), e);
+        }
+        return names;
+    }
+
+    /**
+     * Streams one worksheet
+     * @param sheetIndex 0-based sheet position in the workbook
+     * @param handler Receiver for the rows
+     * @throws IllegalArgumentException if the workbook has no such sheet
+     */
+    public void readSheet(int sheetIndex, RowHandler handler) throws IOException {
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            for (int i = 0; sheets.hasNext(); i++) {
+                try (InputStream sheet = sheets.next()) {
+                    if (i == sheetIndex) {
+                        parse(sheet, handler);
+                        return;
+                    }
+                }
+            }
+        } catch (OpenXML4JException e) {
+            throw new IOException("Failed to read sheet " + sheetIndex + ": " + e.getMessage(), e);
+        }
+        throw new IllegalArgumentException("Workbook has no sheet at index " + sheetIndex);
+    }
+
+    /**
+     * Releases a shared-strings table this reader created; tables passed in are left alone
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownedStrings != null) {
+            ownedStrings.close();
+        }
+    }
+
+    private void parse(InputStream sheet, RowHandler handler) throws IOException {
+        try {
+            XMLReader xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(new SheetHandler(handler));
+            xmlReader.parse(new InputSource(sheet));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to parse sheet: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tells whether a cell style renders numbers as dates; cached per style index
+     */
+    private final class DateStyles {
+
+        private Boolean[] cache = new Boolean[16];
+
+        boolean isDate(int styleIndex) {
+            if (styleIndex < 0 || styles == null) {
+                return false;
+            }
+            if (styleIndex >= cache.length) {
+                cache = Arrays.copyOf(cache, Math.max(styleIndex + 1, cache.length * 2));
+            }
+            Boolean date = cache[styleIndex];
+            if (date == null) {
+                XSSFCellStyle style = styleIndex < styles.getNumCellStyles() ? styles.getStyleAt(styleIndex) : null;
+                date = style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+                cache[styleIndex] = date;
+            }
+            return date;
+        }
+    }
+
+    /**
+     * SAX handler for the sheetData part of a worksheet
+     */
+    private final class SheetHandler extends DefaultHandler {
+
+        private final RowHandler handler;
+        private final DateStyles dateStyles = new DateStyles();
+        private final StringBuilder text = new StringBuilder(64);
+
+        private int rowIndex = -1;
+        private int column;
+        private String cellType;
+        private int styleIndex;
+        private boolean capturing;
+
+        SheetHandler(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                    column = -1;
+                    handler.startRow(rowIndex);
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? columnIndex(ref) : column + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = s != null ? Integer.parseInt(s) : -1;
+                    text.setLength(0);
+                    break;
+                case "v":
+                    capturing = true;
+                    break;
+                case "t":
+                    // Text runs of an inline string; formula text lives in <f> and is skipped
+                    capturing = "inlineStr".equals(cellType);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturing) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    capturing = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    handler.endRow(rowIndex);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void endCell() {
+            if (text.length() == 0) {
+                return;
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                handler.numericCell(column, parseNumber(text), dateStyles.isDate(styleIndex));
+                return;
+            }
+            switch (cellType) {
+                case "s":
+                    int index = Integer.parseInt(text.toString());
+                    handler.stringCell(column, ownedStrings != null
+                            ? ownedStrings.getString(index)
+                            : sharedStrings.getItemAt(index).getString());
+                    break;
+                case "b":
+                    handler.stringCell(column, text.charAt(0) == '1' ? "true" : "false");
+                    break;
+                default:
+                    // inlineStr, str (formula result) and e (error code)
+                    handler.textCell(column, text);
+                    break;
+            }
+        }
+
+        /**
+         * Parses plain integers digit by digit, anything else through Double.parseDouble
+         */
+        private double parseNumber(StringBuilder value) {
+            int length = value.length();
+            boolean negative = value.charAt(0) == '-';
+            int start = negative ? 1 : 0;
+            if (length - start == 0 || length - start > 15) {
+                return Double.parseDouble(value.toString());
+            }
+            long result = 0;
+            for (int i = start; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Double.parseDouble(value.toString());
+                }
+                result = result * 10 + (c - '0');
+            }
+            return negative ? -result : result;
+        }
+
+        private int columnIndex(String ref) {
+            int col = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                col = col * 26 + (c - 'A' + 1);
+            }
+            return col - 1;
+        }
+    }
+}
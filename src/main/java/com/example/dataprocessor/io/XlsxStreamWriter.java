@@ -0,0 +1,195 @@
+package com.example.dataprocessor.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes an XLSX package straight into a zip stream, one worksheet at a time.
+ *
+ * Only the parts a workbook needs are produced: content types, relationships, a workbook
+ * listing the sheets, a minimal style sheet with a date format, and the worksheets whose
+ * rows come pre-rendered from {@link XlsxRowEncoder}. Nothing is buffered beyond the zip
+ * stream itself, so memory stays flat whatever the row count. Closing the writer finishes
+ * the package but leaves the underlying stream open.
+ */
+public class XlsxStreamWriter implements Closeable {
+
+    /** Cell style index rendering serial numbers as yyyy-mm-dd */
+    public static final int DATE_STYLE = 1;
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final List<String> sheetNames = new ArrayList<>();
+    private boolean inSheet;
+    private boolean closed;
+
+    /**
+     * @param out Stream receiving the package, not closed by this writer
+     * @param compressionLevel Deflate level, see {@link java.util.zip.Deflater}
+     */
+    public XlsxStreamWriter(OutputStream out, int compressionLevel) {
+        OutputStream unclosable = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        this.zip = new ZipOutputStream(new BufferedOutputStream(unclosable, 64 * 1024), StandardCharsets.UTF_8);
+        this.zip.setLevel(compressionLevel);
+    }
+
+    /**
+     * Starts a new worksheet, ending the current one if needed
+     * @param name Sheet name as shown in Excel
+     * @param columnWidths Column widths in characters, or null for Excel defaults
+     */
+    public void startSheet(String name, double[] columnWidths) throws IOException {
+        if (inSheet) {
+            endSheet();
+        }
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+
+        StringBuilder header = new StringBuilder(256)
+                .append(XML_DECLARATION)
+                .append("<worksheet xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(REL_NS).append("\">");
+        if (columnWidths != null && columnWidths.length > 0) {
+            header.append("<cols>");
+            for (int i = 0; i < columnWidths.length; i++) {
+                header.append("<col min=\"").append(i + 1).append("\" max=\"").append(i + 1)
+                        .append("\" width=\"").append(columnWidths[i]).append("\" customWidth=\"1\"/>");
+            }
+            header.append("</cols>");
+        }
+        header.append("<sheetData>");
+        writeText(header.toString());
+        inSheet = true;
+    }
+
+    /**
+     * Appends rows rendered by an encoder to the current sheet
+     */
+    public void writeRows(XlsxRowEncoder rows) throws IOException {
+        writeRows(rows.buffer(), 0, rows.length());
+    }
+
+    public void writeRows(byte[] rows, int offset, int length) throws IOException {
+        if (!inSheet) {
+            throw new IllegalStateException("No sheet started");
+        }
+        zip.write(rows, offset, length);
+    }
+
+    public void endSheet() throws IOException {
+        if (!inSheet) {
+            return;
+        }
+        writeText("</sheetData></worksheet>");
+        zip.closeEntry();
+        inSheet = false;
+    }
+
+    public int sheetCount() {
+        return sheetNames.size();
+    }
+
+    /**
+     * Writes the remaining package parts and finishes the zip stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        endSheet();
+        if (sheetNames.isEmpty()) {
+            // A workbook needs at least one sheet
+            startSheet("Sheet1", null);
+            endSheet();
+        }
+
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", XML_DECLARATION
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRelationships());
+        writeEntry("xl/styles.xml", XML_DECLARATION
+                + "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+                + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+                + "</styleSheet>");
+        zip.finish();
+        zip.flush();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(REL_NS).append("\"><sheets>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<sheet name=\"").append(XlsxRowEncoder.escape(sheetNames.get(i - 1)))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRelationships() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(REL_NS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        int stylesId = sheetNames.size() + 1;
+        xml.append("<Relationship Id=\"rId").append(stylesId).append("\" Type=\"").append(REL_NS)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writeText(content);
+        zip.closeEntry();
+    }
+
+    private void writeText(String text) throws IOException {
+        zip.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.dataprocessor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of converting several workbooks, with the timing of every file and sheet
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchConversionResult {
+
+    private String output;
+    private long rows;
+    private long elapsedMillis;
+
+    /** Download link of the concatenated CSV; null when every sheet has its own file */
+    private String downloadLink;
+
+    private List<FileTiming> files = new ArrayList<>();
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond(rows, elapsedMillis);
+    }
+
+    /**
+     * One uploaded workbook, or one workbook of an uploaded archive
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileTiming {
+
+        private String fileName;
+        private long rows;
+
+        /** From the start of its first sheet to the end of its last */
+        private long elapsedMillis;
+
+        private List<SheetTiming> sheets = new ArrayList<>();
+
+        public long getRowsPerSecond() {
+            return rowsPerSecond(rows, elapsedMillis);
+        }
+    }
+
+    /**
+     * One converted worksheet
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SheetTiming {
+
+        private String sheetName;
+        private long rows;
+        private long elapsedMillis;
+
+        /** Download link of the sheet's CSV; null when the output is concatenated */
+        private String downloadLink;
+
+        public long getRowsPerSecond() {
+            return rowsPerSecond(rows, elapsedMillis);
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedMillis) {
+        return elapsedMillis > 0 ? rows * 1000 / elapsedMillis : rows;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.dataprocessor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Point-in-time counters of a cache
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long sizeBytes;
+
+    /**
+     * @return Share of lookups answered from the cache, 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.dataprocessor.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Score figures of one class
+ */
+@Data
+public class ClassScoreDistribution {
+
+    /** Class name, null for students without a class */
+    private String clazz;
+    private long count;
+    /** Students that have a score */
+    private long scoredCount;
+    private Integer minScore;
+    private Integer maxScore;
+    private Double meanScore;
+    /** Estimated scores at p50, p90, p95 and p99, when available */
+    private Map<String, Double> percentiles = new LinkedHashMap<>();
+    /** Students per score bucket, keyed by the bucket's lowest score */
+    private Map<Integer, Long> histogram = new LinkedHashMap<>();
+}
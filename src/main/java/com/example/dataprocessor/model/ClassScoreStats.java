@@ -0,0 +1,116 @@
+package com.example.dataprocessor.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable score aggregate of one class: count, sum, range, a fixed-width histogram and a
+ * {@link ScoreSketch} for percentiles. Aggregates of disjoint sets of rows merge into the
+ * aggregate of their union.
+ */
+public class ClassScoreStats {
+
+    /** Score range covered by each histogram bucket */
+    public static final int HISTOGRAM_WIDTH = 10;
+
+    private long count;
+    private long scoredCount;
+    private long scoreSum;
+    private Integer minScore;
+    private Integer maxScore;
+    /** Rows per bucket, keyed by the bucket's lowest score */
+    private final TreeMap<Integer, Long> histogram = new TreeMap<>();
+    private ScoreSketch sketch = new ScoreSketch();
+
+    /**
+     * Counts {@code times} rows with the score
+     * @param score Score, or null for a row without one
+     */
+    public void add(Integer score, long times) {
+        count += times;
+        if (score == null) {
+            return;
+        }
+        scoredCount += times;
+        scoreSum += (long) score * times;
+        minScore = minScore == null ? score : Math.min(minScore, score);
+        maxScore = maxScore == null ? score : Math.max(maxScore, score);
+        histogram.merge(Math.floorDiv(score, HISTOGRAM_WIDTH) * HISTOGRAM_WIDTH, times, Long::sum);
+        sketch.add(score, times);
+    }
+
+    public void merge(ClassScoreStats other) {
+        count += other.count;
+        scoredCount += other.scoredCount;
+        scoreSum += other.scoreSum;
+        if (other.minScore != null) {
+            minScore = minScore == null ? other.minScore : Math.min(minScore, other.minScore);
+            maxScore = maxScore == null ? other.maxScore : Math.max(maxScore, other.maxScore);
+        }
+        other.histogram.forEach((bucket, n) -> histogram.merge(bucket, n, Long::sum));
+        sketch.merge(other.sketch);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getScoredCount() {
+        return scoredCount;
+    }
+
+    public long getScoreSum() {
+        return scoreSum;
+    }
+
+    public Integer getMinScore() {
+        return minScore;
+    }
+
+    public Integer getMaxScore() {
+        return maxScore;
+    }
+
+    public Map<Integer, Long> getHistogram() {
+        return histogram;
+    }
+
+    public ScoreSketch getSketch() {
+        return sketch;
+    }
+
+    /**
+     * Histogram as "bucket:count" pairs separated by commas, e.g. "60:9401,70:9333"
+     */
+    public String formatHistogram() {
+        StringBuilder text = new StringBuilder(histogram.size() * 12);
+        for (Map.Entry<Integer, Long> bucket : histogram.entrySet()) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(bucket.getKey()).append(':').append(bucket.getValue());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Restores an aggregate from its stored columns
+     */
+    public static ClassScoreStats of(long count, long scoredCount, long scoreSum, Integer minScore, Integer maxScore,
+                                     String histogram, ScoreSketch sketch) {
+        ClassScoreStats stats = new ClassScoreStats();
+        stats.count = count;
+        stats.scoredCount = scoredCount;
+        stats.scoreSum = scoreSum;
+        stats.minScore = minScore;
+        stats.maxScore = maxScore;
+        if (histogram != null && !histogram.isEmpty()) {
+            for (String bucket : histogram.split(",")) {
+                int colon = bucket.indexOf(':');
+                stats.histogram.put(Integer.parseInt(bucket.substring(0, colon)), Long.parseLong(bucket.substring(colon + 1)));
+            }
+        }
+        stats.sketch = sketch;
+        return stats;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.dataprocessor.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset listing. Cursors are null where there is no page in that direction;
+ * totalElements is only filled in when the caller asked for a count.
+ */
+@Data
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private String prevCursor;
+    private boolean hasNext;
+    private boolean hasPrevious;
+    private Long totalElements;
+
+    public CursorPage(List<T> content, int size) {
+        this.content = content;
+        this.size = size;
+    }
+
+    public int getNumberOfElements() {
+        return content != null ? content.size() : 0;
+    }
+}
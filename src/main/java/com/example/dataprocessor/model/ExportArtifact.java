@@ -0,0 +1,26 @@
+package com.example.dataprocessor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Export file written to the data directory
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportArtifact {
+
+    private String format;
+    private String filePath;
+    private long recordCount;
+    /** Whether the file was already there from an earlier export of the same data */
+    private boolean cached;
+
+    public ExportArtifact(String format, String filePath, long recordCount) {
+        this.format = format;
+        this.filePath = filePath;
+        this.recordCount = recordCount;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.dataprocessor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a CSV import into the students table
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+
+    private String mode;
+    private long rowsImported;
+    private long rowsSkipped;
+    private long elapsedMillis;
+    
+    /** Per-stream figures of a parallel import; empty for single-stream modes */
+    private List<StreamStats> streams = new ArrayList<>();
+    
+    /** Outcome per student of an upsert import; null for the other modes */
+    private MergeCounts merge;
+
+    public ImportResult(String mode, long rowsImported, long rowsSkipped, long elapsedMillis) {
+        this.mode = mode;
+        this.rowsImported = rowsImported;
+        this.rowsSkipped = rowsSkipped;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond(rowsImported, elapsedMillis);
+    }
+
+    /**
+     * Throughput of one COPY stream
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StreamStats {
+
+        private int stream;
+        private long bytes;
+        private long rows;
+        private long skipped;
+        private long elapsedMillis;
+
+        public long getRowsPerSecond() {
+            return rowsPerSecond(rows, elapsedMillis);
+        }
+    }
+
+    /**
+     * How the rows of an upsert import were applied
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MergeCounts {
+
+        /** New student IDs */
+        private long inserted;
+
+        /** Existing students whose values changed */
+        private long updated;
+
+        /** Existing students already holding the same values */
+        private long unchanged;
+
+        /** Rows dropped because a later row of the upload had the same student ID */
+        private long duplicates;
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedMillis) {
+        return elapsedMillis > 0 ? rows * 1000 / elapsedMillis : rows;
+    }
+}
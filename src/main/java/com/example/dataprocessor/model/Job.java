@@ -0,0 +1,139 @@
+package com.example.dataprocessor.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A generate, convert or import run executing in the background.
+ *
+ * Status fields are written by the worker thread and read by status requests, so they are
+ * volatile; the row counter is bumped from the pipeline loops, possibly from several threads.
+ */
+@Getter
+public class Job {
+
+    private final String id;
+    private final JobType type;
+    private final String description;
+    private final Instant createdAt = Instant.now();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String downloadLink;
+    private volatile String error;
+    private volatile Object result;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rowsProcessed = new AtomicLong();
+
+    @JsonIgnore
+    private volatile Future<?> future;
+
+    public Job(String id, JobType type, String description) {
+        this.id = id;
+        this.type = type;
+        this.description = description;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed.get();
+    }
+
+    /**
+     * Rows per second since the job started, up to now or to when it finished
+     */
+    public long getRowsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Duration.between(start, end).toMillis();
+        return millis > 0 ? rowsProcessed.get() * 1000 / millis : 0;
+    }
+
+    public void addRows(long rows) {
+        rowsProcessed.addAndGet(rows);
+    }
+
+    public void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Records a generated file as the job's artifact
+     * @param filePath Path of the file in the data directory
+     */
+    public void setArtifact(String filePath) {
+        this.downloadLink = "/api/download/" + Paths.get(filePath).getFileName();
+    }
+
+    public void setResult(Object result) {
+        this.result = result;
+    }
+
+    /**
+     * @return false if the job was cancelled before it got to run
+     */
+    public synchronized boolean markRunning() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+        return true;
+    }
+
+    public synchronized void markSucceeded() {
+        finish(JobStatus.SUCCEEDED, null);
+    }
+
+    public synchronized void markFailed(String error) {
+        finish(JobStatus.FAILED, error);
+    }
+
+    /**
+     * Records that the job stopped because it was cancelled
+     */
+    public synchronized void markCancelled() {
+        finish(JobStatus.CANCELLED, null);
+    }
+
+    /**
+     * Cancels the job. A queued job is cancelled right away and skipped when its turn comes;
+     * a running job is interrupted and marked CANCELLING, and keeps that status until the
+     * worker stops, since work past its last cancellation check may still commit.
+     * @return false if the job had already finished
+     */
+    public synchronized boolean cancel() {
+        if (status.isFinished()) {
+            return false;
+        }
+        if (status == JobStatus.QUEUED) {
+            finish(JobStatus.CANCELLED, null);
+        } else if (status == JobStatus.RUNNING) {
+            status = JobStatus.CANCELLING;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        return true;
+    }
+
+    private void finish(JobStatus finalStatus, String errorMessage) {
+        if (status.isFinished()) {
+            return;
+        }
+        this.error = errorMessage;
+        this.finishedAt = Instant.now();
+        this.status = finalStatus;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.dataprocessor.model;
+
+/**
+ * Lifecycle of a background job
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    /** Cancel requested while running; the worker settles the final status */
+    CANCELLING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.dataprocessor.model;
+
+/**
+ * Kinds of background work; each kind runs on an executor of its own
+ */
+public enum JobType {
+    GENERATE,
+    CONVERT,
+    IMPORT
+}
@@ -0,0 +1,23 @@
+package com.example.dataprocessor.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Score distribution per class, computed from the in-memory student snapshot
+ */
+@Data
+public class ScoreDistributionReport {
+
+    /** Data version the snapshot was read at */
+    private long snapshotVersion;
+    private long snapshotBuiltAt;
+    private long rowCount;
+    /** Heap held by the snapshot's column arrays */
+    private long snapshotBytes;
+    private int bucketWidth;
+    private long elapsedMillis;
+    private List<ClassScoreDistribution> classes = new ArrayList<>();
+}
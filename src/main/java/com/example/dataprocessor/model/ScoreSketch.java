@@ -0,0 +1,153 @@
+package com.example.dataprocessor.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch with relative accuracy, after DDSketch.
+ *
+ * A value v is counted in the logarithmic bin {@code ceil(log(|v|) / log(gamma))}, with
+ * {@code gamma = (1 + a) / (1 - a)} for the relative accuracy {@code a} of
+ * {@value #RELATIVE_ACCURACY}; zero has a bin of its own. A quantile is answered with the
+ * representative value of the bin holding that rank, which is within {@code a} of the true
+ * value. Two sketches merge by adding their bin counts, so sketches of separate parts of a
+ * data set combine into the sketch of the whole. Size depends on the value range, not the
+ * number of values.
+ */
+public class ScoreSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT = 1;
+
+    /** Bins of positive values and of the magnitudes of negative values */
+    private final TreeMap<Integer, Long> positive = new TreeMap<>();
+    private final TreeMap<Integer, Long> negative = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public void add(double value, long times) {
+        if (value > 0) {
+            positive.merge(index(value), times, Long::sum);
+        } else if (value < 0) {
+            negative.merge(index(-value), times, Long::sum);
+        } else {
+            zeroCount += times;
+        }
+        count += times;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void merge(ScoreSketch other) {
+        other.positive.forEach((index, n) -> positive.merge(index, n, Long::sum));
+        other.negative.forEach((index, n) -> negative.merge(index, n, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile Between 0 and 1
+     * @return Estimated value at the quantile, or null if the sketch is empty
+     */
+    public Double quantile(double quantile) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = 0;
+        // Most negative first: largest magnitudes of the negative bins
+        for (Map.Entry<Integer, Long> bin : negative.descendingMap().entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return -value(bin.getKey());
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+        for (Map.Entry<Integer, Long> bin : positive.entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return value(bin.getKey());
+            }
+        }
+        return value(positive.lastKey());
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + (positive.size() + negative.size()) * 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeLong(zeroCount);
+            writeBins(out, positive);
+            writeBins(out, negative);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes were not written by {@link #toBytes()}
+     */
+    public static ScoreSketch fromBytes(byte[] data) {
+        ScoreSketch sketch = new ScoreSketch();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != FORMAT) {
+                throw new IllegalArgumentException("Unknown sketch format");
+            }
+            sketch.zeroCount = in.readLong();
+            sketch.count = sketch.zeroCount + readBins(in, sketch.positive) + readBins(in, sketch.negative);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt sketch", e);
+        }
+        return sketch;
+    }
+
+    private static void writeBins(DataOutputStream out, TreeMap<Integer, Long> bins) throws IOException {
+        out.writeInt(bins.size());
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            out.writeInt(bin.getKey());
+            out.writeLong(bin.getValue());
+        }
+    }
+
+    private static long readBins(DataInputStream in, TreeMap<Integer, Long> bins) throws IOException {
+        int size = in.readInt();
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            int index = in.readInt();
+            long n = in.readLong();
+            bins.put(index, n);
+            total += n;
+        }
+        return total;
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    /**
+     * Point of bin {@code index} with the smallest relative distance to both of its bounds
+     */
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
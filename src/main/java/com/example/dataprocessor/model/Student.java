@@ -8,7 +8,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "students")
+// (column, student_id) indexes serve keyset pages filtered or sorted by class and score
+@Table(name = "students", indexes = {
+        @Index(name = "idx_students_class_id", columnList = "class, student_id"),
+        @Index(name = "idx_students_score_id", columnList = "score, student_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
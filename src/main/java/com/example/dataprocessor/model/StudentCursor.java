@@ -0,0 +1,75 @@
+package com.example.dataprocessor.model;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.Base64;
+
+/**
+ * Position in a keyset listing of students: the ordering, the (sort value, studentId) of the
+ * row at the page edge, and whether to read forwards or backwards from it. Handed to
+ * clients as an opaque URL-safe token.
+ */
+@Getter
+public class StudentCursor {
+
+    private static final String VERSION = "1";
+
+    private final StudentSortField sortField;
+    private final boolean ascending;
+    private final boolean backward;
+    private final long lastId;
+    private final String lastValue;
+
+    public StudentCursor(StudentSortField sortField, boolean ascending, boolean backward, long lastId, String lastValue) {
+        this.sortField = sortField;
+        this.ascending = ascending;
+        this.backward = backward;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * Cursor pointing after (or, for a backward cursor, before) the given student
+     */
+    public static StudentCursor at(Student student, StudentSortField sortField, boolean ascending, boolean backward) {
+        return new StudentCursor(sortField, ascending, backward, student.getStudentId(),
+                sortField.format(sortField.valueOf(student)));
+    }
+
+    /**
+     * @return Sort value of the edge row in the property's Java type, or null
+     */
+    public Comparable<?> getParsedValue() {
+        return sortField.parse(lastValue);
+    }
+
+    public String encode() {
+        // The value goes last so it may contain the separator
+        String raw = VERSION + '|' + sortField.name() + '|' + (ascending ? 'a' : 'd') + '|' + (backward ? 'p' : 'n')
+                + '|' + lastId + '|' + (lastValue == null ? "-" : "=" + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static StudentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 6);
+            if (parts.length != 6 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            StudentSortField sortField = StudentSortField.valueOf(parts[1]);
+            String lastValue = parts[5].startsWith("=") ? parts[5].substring(1) : null;
+            // Fail here rather than in the query if the value does not fit the sort property
+            sortField.parse(lastValue);
+            return new StudentCursor(sortField, "a".equals(parts[2]), "p".equals(parts[3]),
+                    Long.parseLong(parts[4]), lastValue);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.dataprocessor.model;
+
+import java.time.LocalDate;
+
+/**
+ * Student properties a keyset listing can be ordered by. Every ordering is completed with
+ * studentId as a tie-breaker, so (sort value, studentId) is unique and can be seeked.
+ */
+public enum StudentSortField {
+
+    STUDENT_ID("studentId", false),
+    FIRST_NAME("firstName", false),
+    LAST_NAME("lastName", false),
+    DOB("dob", true),
+    CLAZZ("clazz", true),
+    SCORE("score", true);
+
+    private final String property;
+    private final boolean nullable;
+
+    StudentSortField(String property, boolean nullable) {
+        this.property = property;
+        this.nullable = nullable;
+    }
+
+    /**
+     * @return Entity property name
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * Reads a cursor value back into the property's Java type
+     * @param value Value as written by {@link #format(Object)}, or null
+     */
+    public Comparable<?> parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (this) {
+            case STUDENT_ID:
+                return Long.valueOf(value);
+            case DOB:
+                return LocalDate.parse(value);
+            case SCORE:
+                return Integer.valueOf(value);
+            default:
+                return value;
+        }
+    }
+
+    public String format(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Reads the sort value of a student
+     */
+    public Object valueOf(Student student) {
+        switch (this) {
+            case STUDENT_ID:
+                return student.getStudentId();
+            case FIRST_NAME:
+                return student.getFirstName();
+            case LAST_NAME:
+                return student.getLastName();
+            case DOB:
+                return student.getDob();
+            case CLAZZ:
+                return student.getClazz();
+            default:
+                return student.getScore();
+        }
+    }
+
+    /**
+     * Parses a sort request parameter
+     * @param parameter Property name, case-insensitive; "class" is accepted for clazz
+     * @throws IllegalArgumentException if the property cannot be sorted by
+     */
+    public static StudentSortField fromParameter(String parameter) {
+        for (StudentSortField field : values()) {
+            if (field.property.equalsIgnoreCase(parameter)) {
+                return field;
+            }
+        }
+        if ("class".equalsIgnoreCase(parameter)) {
+            return CLAZZ;
+        }
+        throw new IllegalArgumentException("Unsupported sort property: " + parameter);
+    }
+}
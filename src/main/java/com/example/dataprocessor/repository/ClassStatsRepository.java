@@ -0,0 +1,166 @@
+package com.example.dataprocessor.repository;
+
+import com.example.dataprocessor.model.ClassScoreStats;
+import com.example.dataprocessor.model.ScoreSketch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-class score aggregates in student_class_stats (see schema.sql), one row per class.
+ *
+ * Imports fold the aggregate of their rows into the table on their own connection, in the
+ * transaction that commits the rows, so the table always matches students. Students
+ * without a class are kept under the empty string.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClassStatsRepository {
+
+    private static final String SELECT_SQL = "SELECT class, row_count, scored_count, score_sum, min_score, max_score, "
+            + "histogram, score_sketch FROM student_class_stats";
+
+    private static final String UPSERT_SQL = "INSERT INTO student_class_stats(class, row_count, scored_count, "
+            + "score_sum, min_score, max_score, histogram, score_sketch, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, now()) "
+            + "ON CONFLICT (class) DO UPDATE SET row_count = EXCLUDED.row_count, scored_count = EXCLUDED.scored_count, "
+            + "score_sum = EXCLUDED.score_sum, min_score = EXCLUDED.min_score, max_score = EXCLUDED.max_score, "
+            + "histogram = EXCLUDED.histogram, score_sketch = EXCLUDED.score_sketch, updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return Aggregates by class, ordered by class
+     */
+    public Map<String, ClassScoreStats> findAll() {
+        return jdbcTemplate.query(SELECT_SQL + " ORDER BY class", ClassStatsRepository::readAll);
+    }
+
+    /**
+     * Merges the aggregates of newly imported rows into the table. Runs in the caller's
+     * transaction on the given connection; concurrent imports wait for each other here
+     * until the first commits, readers do not.
+     * @param connection Connection of the import, auto-commit off
+     * @param delta Aggregates of the imported rows by class
+     */
+    public void merge(Connection connection, Map<String, ClassScoreStats> delta) throws SQLException {
+        if (delta.isEmpty()) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LOCK TABLE student_class_stats IN EXCLUSIVE MODE");
+        }
+        Map<String, ClassScoreStats> merged;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(SELECT_SQL)) {
+            merged = readAll(resultSet);
+        }
+        for (Map.Entry<String, ClassScoreStats> entry : delta.entrySet()) {
+            merged.computeIfAbsent(entry.getKey(), clazz -> new ClassScoreStats()).merge(entry.getValue());
+        }
+        Map<String, ClassScoreStats> changed = new LinkedHashMap<>();
+        for (String clazz : delta.keySet()) {
+            changed.put(clazz, merged.get(clazz));
+        }
+        upsert(connection, changed);
+    }
+
+    /**
+     * Replaces the whole table with the aggregates of a complete set of students, in the
+     * caller's transaction on the given connection
+     * @param connection Connection of the import that replaced students, auto-commit off
+     * @param stats Aggregates of all students by class
+     */
+    public void replace(Connection connection, Map<String, ClassScoreStats> stats) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LOCK TABLE student_class_stats IN EXCLUSIVE MODE");
+            statement.execute("DELETE FROM student_class_stats");
+        }
+        upsert(connection, stats);
+    }
+
+    /**
+     * Replaces the whole table with aggregates computed from students, one row per
+     * (class, score) pair read
+     * @return The new aggregates by class
+     */
+    public Map<String, ClassScoreStats> rebuild() {
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, ClassScoreStats>>) this::rebuild);
+    }
+
+    /**
+     * Recomputes the table from students on the given connection, in the caller's transaction
+     * @param connection Connection whose transaction also holds the changes to students
+     * @return The new aggregates by class
+     */
+    public Map<String, ClassScoreStats> rebuild(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // Taken before students is read: imports still committing wait and apply on top
+            statement.execute("LOCK TABLE student_class_stats IN EXCLUSIVE MODE");
+            statement.execute("DELETE FROM student_class_stats");
+        }
+        Map<String, ClassScoreStats> stats = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(class, ''), score, count(*) "
+                     + "FROM students GROUP BY 1, 2 ORDER BY 1")) {
+            while (resultSet.next()) {
+                int score = resultSet.getInt(2);
+                Integer value = resultSet.wasNull() ? null : score;
+                stats.computeIfAbsent(resultSet.getString(1), clazz -> new ClassScoreStats())
+                        .add(value, resultSet.getLong(3));
+            }
+        }
+        upsert(connection, stats);
+        return stats;
+    }
+
+    private static void upsert(Connection connection, Map<String, ClassScoreStats> stats) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+            for (Map.Entry<String, ClassScoreStats> entry : stats.entrySet()) {
+                ClassScoreStats value = entry.getValue();
+                statement.setString(1, entry.getKey());
+                statement.setLong(2, value.getCount());
+                statement.setLong(3, value.getScoredCount());
+                statement.setLong(4, value.getScoreSum());
+                setInteger(statement, 5, value.getMinScore());
+                setInteger(statement, 6, value.getMaxScore());
+                statement.setString(7, value.formatHistogram());
+                statement.setBytes(8, value.getSketch().toBytes());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static Map<String, ClassScoreStats> readAll(ResultSet resultSet) throws SQLException {
+        Map<String, ClassScoreStats> stats = new LinkedHashMap<>();
+        while (resultSet.next()) {
+            stats.put(resultSet.getString(1), ClassScoreStats.of(
+                    resultSet.getLong(2),
+                    resultSet.getLong(3),
+                    resultSet.getLong(4),
+                    resultSet.getObject(5, Integer.class),
+                    resultSet.getObject(6, Integer.class),
+                    resultSet.getString(7),
+                    ScoreSketch.fromBytes(resultSet.getBytes(8))));
+        }
+        return stats;
+    }
+
+    private static void setInteger(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value != null) {
+            statement.setInt(index, value);
+        } else {
+            statement.setNull(index, Types.INTEGER);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.dataprocessor.repository;
+
+import com.example.dataprocessor.model.Student;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads students for export through a forward-only JDBC cursor.
+ *
+ * All filters are applied in SQL and rows are fetched {@code app.export.fetch-size} at a
+ * time, each handed to the callback and then dropped, so memory stays flat however many
+ * rows match. PostgreSQL only uses a cursor when auto-commit is off, so callers must run
+ * inside a transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentExportRepository {
+
+    /**
+     * Receives exported students one at a time
+     */
+    @FunctionalInterface
+    public interface StudentRowCallback {
+        void accept(Student student) throws IOException;
+    }
+
+    private static final String SELECT_SQL =
+            "SELECT student_id, first_name, last_name, date_of_birth, class, score FROM students";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Streams the students matching the filters, ordered by student ID
+     * @param studentId Optional student ID filter
+     * @param clazz Optional class filter
+     * @param search Optional search term for first/last name
+     * @param callback Receives each student
+     * @return Number of students streamed
+     * @throws IOException if the callback fails
+     */
+    public long forEach(Long studentId, String clazz, String search, StudentRowCallback callback) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> params = new ArrayList<>(4);
+        String separator = " WHERE ";
+
+        if (studentId != null) {
+            sql.append(separator).append("student_id = ?");
+            params.add(studentId);
+            separator = " AND ";
+        }
+        if (clazz != null && !clazz.trim().isEmpty()) {
+            sql.append(separator).append("class = ?");
+            params.add(clazz);
+            separator = " AND ";
+        }
+        if (search != null && !search.trim().isEmpty()) {
+            // Same expressions as StudentSpecifications, so the trigram indexes apply
+            String pattern = StudentSpecifications.containsPattern(search);
+            sql.append(separator).append("(lower(first_name) LIKE ? OR lower(last_name) LIKE ?)");
+            params.add(pattern);
+            params.add(pattern);
+        }
+        sql.append(" ORDER BY student_id");
+
+        long[] count = new long[1];
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, resultSet -> {
+                try {
+                    callback.accept(mapRow(resultSet));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private static Student mapRow(ResultSet resultSet) throws SQLException {
+        int score = resultSet.getInt(6);
+        boolean noScore = resultSet.wasNull();
+        return new Student(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getObject(4, LocalDate.class),
+                resultSet.getString(5),
+                noScore ? null : score);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.dataprocessor.repository;
+
+import com.example.dataprocessor.model.CursorPage;
+import com.example.dataprocessor.model.Student;
+import com.example.dataprocessor.model.StudentCursor;
+import com.example.dataprocessor.model.StudentSortField;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Queries of {@link StudentRepository} that Spring Data cannot derive
+ */
+public interface StudentRepositoryCustom {
+
+    /**
+     * Reads one page of students by seeking past the cursor row instead of using OFFSET,
+     * so every page costs the same however deep it is. No count query is run.
+     * @param spec Filters, may be null
+     * @param sortField Ordering of a first page; ignored when a cursor is given
+     * @param ascending Direction of a first page; ignored when a cursor is given
+     * @param cursor Position to continue from, or null for the first page
+     * @param size Page size
+     * @return Page with next/previous cursors
+     */
+    CursorPage<Student> findPage(Specification<Student> spec, StudentSortField sortField, boolean ascending,
+                                 StudentCursor cursor, int size);
+
+    /**
+     * Relevance-ranked name search: students whose first or last name contains the term
+     * come first, followed by near matches, each ordered by trigram similarity
+     * @param search Search term
+     * @param clazz Optional class filter
+     * @param limit Maximum number of students to return
+     * @return Students, best match first
+     */
+    List<Student> searchByName(String search, String clazz, int limit);
+}
@@ -0,0 +1,156 @@
+package com.example.dataprocessor.repository;
+
+import com.example.dataprocessor.model.CursorPage;
+import com.example.dataprocessor.model.Student;
+import com.example.dataprocessor.model.StudentCursor;
+import com.example.dataprocessor.model.StudentSortField;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyset pagination over students.
+ *
+ * Rows are ordered by (sort property, studentId) and a page continues strictly after the
+ * (value, id) pair of the previous page's edge row. Null sort values are treated as the
+ * largest values, matching PostgreSQL's default NULLS LAST / NULLS FIRST ordering, so the
+ * seek predicate and the ORDER BY agree. Backward pages are read in reverse order and
+ * flipped back before returning.
+ */
+public class StudentRepositoryImpl implements StudentRepositoryCustom {
+
+    // "%" is pg_trgm's similarity operator; like LIKE on lower(...) it is served by the
+    // GIN trigram indexes from schema.sql
+    private static final String SEARCH_SELECT =
+            "SELECT s.* FROM students s"
+            + " WHERE (lower(s.first_name) LIKE :pattern OR lower(s.last_name) LIKE :pattern"
+            + " OR lower(s.first_name) % :term OR lower(s.last_name) % :term)";
+
+    private static final String SEARCH_ORDER =
+            " ORDER BY (lower(s.first_name) LIKE :pattern OR lower(s.last_name) LIKE :pattern) DESC,"
+            + " greatest(similarity(lower(s.first_name), :term), similarity(lower(s.last_name), :term)) DESC,"
+            + " s.student_id"
+            + " LIMIT :limit";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Student> findPage(Specification<Student> spec, StudentSortField sortField, boolean ascending,
+                                        StudentCursor cursor, int size) {
+        if (cursor != null) {
+            sortField = cursor.getSortField();
+            ascending = cursor.isAscending();
+        }
+        boolean backward = cursor != null && cursor.isBackward();
+        // Reading backwards means walking the ordering in reverse
+        boolean queryAscending = ascending != backward;
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Student> query = cb.createQuery(Student.class);
+        Root<Student> root = query.from(Student.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate filter = spec.toPredicate(root, query, cb);
+            if (filter != null) {
+                predicates.add(filter);
+            }
+        }
+        if (cursor != null) {
+            predicates.add(seekPredicate(cb, root, sortField, queryAscending, cursor));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        Path<Long> id = root.get("studentId");
+        if (sortField == StudentSortField.STUDENT_ID) {
+            query.orderBy(queryAscending ? cb.asc(id) : cb.desc(id));
+        } else {
+            Path<Object> value = root.get(sortField.getProperty());
+            query.orderBy(queryAscending ? cb.asc(value) : cb.desc(value),
+                    queryAscending ? cb.asc(id) : cb.desc(id));
+        }
+
+        // One extra row tells whether another page follows in the read direction
+        List<Student> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean more = rows.size() > size;
+        if (more) {
+            rows = new ArrayList<>(rows.subList(0, size));
+        }
+        if (backward) {
+            rows = new ArrayList<>(rows);
+            Collections.reverse(rows);
+        }
+
+        CursorPage<Student> page = new CursorPage<>(rows, size);
+        page.setHasNext(backward || more);
+        page.setHasPrevious(backward ? more : cursor != null);
+        if (!rows.isEmpty()) {
+            if (page.isHasNext()) {
+                page.setNextCursor(StudentCursor.at(rows.get(rows.size() - 1), sortField, ascending, false).encode());
+            }
+            if (page.isHasPrevious()) {
+                page.setPrevCursor(StudentCursor.at(rows.get(0), sortField, ascending, true).encode());
+            }
+        }
+        return page;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Student> searchByName(String search, String clazz, int limit) {
+        boolean filterClass = clazz != null && !clazz.trim().isEmpty();
+        String sql = SEARCH_SELECT + (filterClass ? " AND s.class = :clazz" : "") + SEARCH_ORDER;
+
+        Query query = entityManager.createNativeQuery(sql, Student.class)
+                .setParameter("pattern", StudentSpecifications.containsPattern(search))
+                .setParameter("term", search.trim().toLowerCase())
+                .setParameter("limit", limit);
+        if (filterClass) {
+            query.setParameter("clazz", clazz);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Rows strictly after the cursor row in the given query direction
+     */
+    @SuppressWarnings("unchecked")
+    private static Predicate seekPredicate(CriteriaBuilder cb, Root<Student> root, StudentSortField sortField,
+                                           boolean ascending, StudentCursor cursor) {
+        Path<Long> id = root.get("studentId");
+        Predicate idAfter = ascending ? cb.greaterThan(id, cursor.getLastId()) : cb.lessThan(id, cursor.getLastId());
+        if (sortField == StudentSortField.STUDENT_ID) {
+            return idAfter;
+        }
+
+        Expression<Comparable<Object>> column = root.get(sortField.getProperty());
+        Comparable<Object> value = (Comparable<Object>) cursor.getParsedValue();
+
+        if (value == null) {
+            // Nulls sort last ascending and first descending
+            Predicate sameNull = cb.and(cb.isNull(column), idAfter);
+            return ascending ? sameNull : cb.or(sameNull, cb.isNotNull(column));
+        }
+
+        Predicate beyond = ascending ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+        Predicate tie = cb.and(cb.equal(column, value), idAfter);
+        if (ascending && sortField.isNullable()) {
+            return cb.or(beyond, tie, cb.isNull(column));
+        }
+        return cb.or(beyond, tie);
+    }
+}
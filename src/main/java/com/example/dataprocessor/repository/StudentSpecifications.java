@@ -0,0 +1,73 @@
+package com.example.dataprocessor.repository;
+
+import com.example.dataprocessor.model.Student;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters shared by the student listing, search and export queries.
+ *
+ * Only the filters that are set become predicates, so PostgreSQL never sees an
+ * "(? IS NULL OR ...)" branch it has to plan around. The name search compares
+ * lower(first_name) / lower(last_name) against a LIKE pattern, the exact expressions
+ * of the trigram indexes in schema.sql, so it is answered from those indexes.
+ */
+public final class StudentSpecifications {
+
+    /** Escape character used in LIKE patterns built by {@link #containsPattern(String)} */
+    public static final char LIKE_ESCAPE = '\\';
+
+    private StudentSpecifications() {
+    }
+
+    /**
+     * Creates a specification for the studentId, clazz and name-search filters
+     * @param studentId Optional student ID filter
+     * @param clazz Optional class filter
+     * @param search Optional search term for first/last name
+     */
+    public static Specification<Student> filter(Long studentId, String clazz, String search) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (studentId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("studentId"), studentId));
+            }
+
+            if (clazz != null && !clazz.trim().isEmpty()) {
+                predicates.add(criteriaBuilder.equal(root.get("clazz"), clazz));
+            }
+
+            if (search != null && !search.trim().isEmpty()) {
+                String searchPattern = containsPattern(search);
+                Predicate firstNamePredicate = criteriaBuilder.like(
+                    criteriaBuilder.lower(root.get("firstName")), searchPattern, LIKE_ESCAPE);
+                Predicate lastNamePredicate = criteriaBuilder.like(
+                    criteriaBuilder.lower(root.get("lastName")), searchPattern, LIKE_ESCAPE);
+                predicates.add(criteriaBuilder.or(firstNamePredicate, lastNamePredicate));
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Lower-cased "%term%" pattern with LIKE wildcards in the term escaped, so "_" or "%"
+     * typed by a user match literally
+     */
+    public static String containsPattern(String search) {
+        String term = search.trim().toLowerCase();
+        StringBuilder pattern = new StringBuilder(term.length() + 4).append('%');
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.CsvRowWriter;
+import com.example.dataprocessor.io.XlsxSheetReader;
+import com.example.dataprocessor.model.BatchConversionResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Converts every sheet of several workbooks to CSV at once.
+ *
+ * Uploads are Excel files or zip archives of them. Each workbook is opened read-only
+ * once and its sheets are converted as separate tasks on a pool of
+ * {@code app.convert.parallelism} threads, so large and small sheets of all files share
+ * the workers. Sheets either get their own CSV in the data directory or are written to
+ * temp parts that are joined in upload, archive and sheet order under a single header.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchConversionService {
+
+    private static final int MAX_NAME_LENGTH = 40;
+
+    private final ExcelToCsvService excelToCsvService;
+    private final PipelineMetrics pipelineMetrics;
+
+    @Value("${app.data.path}")
+    private String dataPath;
+
+    @Value("${app.convert.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "sheet-convert-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Converts all sheets of the uploaded workbooks
+     * @param files Excel files and zip archives of Excel files
+     * @param output One CSV per sheet or a single concatenated CSV
+     * @return Links to the CSV output and the timing of every file and sheet
+     * @throws IllegalArgumentException if an upload is neither an Excel file nor a zip archive,
+     *         or the uploads contain no workbook
+     */
+    public BatchConversionResult convert(List<MultipartFile> files, BatchOutput output) throws IOException {
+        long start = System.nanoTime();
+        Path dataDir = Paths.get(dataPath);
+        Files.createDirectories(dataDir);
+        Path workDir = Files.createTempDirectory("batch_convert_");
+        List<OPCPackage> packages = new ArrayList<>();
+        List<XlsxSheetReader> readers = new ArrayList<>();
+        List<SheetTask> tasks = new ArrayList<>();
+        try {
+            List<Workbook> workbooks = spool(files, workDir);
+            if (workbooks.isEmpty()) {
+                throw new IllegalArgumentException("No Excel workbooks in the upload");
+            }
+            long bytesRead = 0;
+            for (Workbook workbook : workbooks) {
+                bytesRead += Files.size(workbook.file);
+                pipelineMetrics.tempFile(PipelineMetrics.Stage.CONVERT, "workbook", workbook.file);
+            }
+
+            String prefix = "converted_" + System.currentTimeMillis();
+            for (int w = 0; w < workbooks.size(); w++) {
+                Workbook workbook = workbooks.get(w);
+                OPCPackage pkg = open(workbook);
+                packages.add(pkg);
+                // Shared by the workbook's sheet tasks, so its shared strings are loaded once
+                XlsxSheetReader reader = excelToCsvService.openReader(pkg);
+                readers.add(reader);
+                List<String> sheetNames = reader.sheetNames();
+                for (int s = 0; s < sheetNames.size(); s++) {
+                    // Workbook and sheet numbers keep targets apart where safeName collapses names
+                    Path target = output == BatchOutput.SHEETS
+                            ? dataDir.resolve(String.format("%s_%02d_%02d_%s_%s.csv", prefix, w + 1, s + 1,
+                                    safeName(workbook.name), safeName(sheetNames.get(s))))
+                            : workDir.resolve(String.format("part_%d_%d.csv", w, s));
+                    tasks.add(new SheetTask(w, sheetNames.get(s), reader, s, target, output == BatchOutput.SHEETS));
+                }
+            }
+            log.info("Converting {} sheets of {} workbooks on {} threads", tasks.size(), workbooks.size(), parallelism);
+
+            runAll(tasks);
+
+            BatchConversionResult result = new BatchConversionResult();
+            result.setOutput(output.name().toLowerCase(Locale.ROOT));
+            long bytesWritten = 0;
+            if (output == BatchOutput.CONCATENATED) {
+                Path csvPath = dataDir.resolve(prefix + ".csv");
+                for (SheetTask task : tasks) {
+                    pipelineMetrics.tempFile(PipelineMetrics.Stage.CONVERT, "part", task.target);
+                }
+                concatenate(tasks, csvPath);
+                bytesWritten = Files.size(csvPath);
+                result.setDownloadLink("/api/download/" + csvPath.getFileName());
+            } else {
+                for (SheetTask task : tasks) {
+                    bytesWritten += Files.size(task.target);
+                }
+            }
+            for (int w = 0; w < workbooks.size(); w++) {
+                result.getFiles().add(fileTiming(workbooks.get(w).name, w, tasks));
+            }
+            result.setRows(tasks.stream().mapToLong(task -> task.rows).sum());
+            result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            log.info("Converted {} rows from {} workbooks in {} ms", result.getRows(), workbooks.size(),
+                    result.getElapsedMillis());
+            pipelineMetrics.record(PipelineMetrics.Stage.CONVERT, "batch", start, result.getRows(), bytesRead, bytesWritten);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            pipelineMetrics.failed(PipelineMetrics.Stage.CONVERT, "batch", start);
+            if (output == BatchOutput.SHEETS) {
+                for (SheetTask task : tasks) {
+                    Files.deleteIfExists(task.target);
+                }
+            }
+            throw e;
+        } finally {
+            for (XlsxSheetReader reader : readers) {
+                reader.close();
+            }
+            for (OPCPackage pkg : packages) {
+                pkg.revert();
+            }
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Runs the sheet tasks on the pool and waits for all of them; the first failure
+     * cancels the rest
+     */
+    private void runAll(List<SheetTask> tasks) throws IOException {
+        List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (SheetTask task : tasks) {
+                futures.add(executor.submit(JobContext.propagate(task)));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch conversion interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Sheet conversion failed", cause);
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Writes the header and then every part, in task order
+     */
+    private void concatenate(List<SheetTask> tasks, Path csvPath) throws IOException {
+        try (OutputStream out = Files.newOutputStream(csvPath)) {
+            try (CsvRowWriter header = new CsvRowWriter(out, 1024)) {
+                header.writeRow(ExcelToCsvService.CSV_HEADER);
+            }
+            for (SheetTask task : tasks) {
+                Files.copy(task.target, out);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(csvPath);
+            throw e;
+        }
+    }
+
+    private static BatchConversionResult.FileTiming fileTiming(String name, int workbook, List<SheetTask> tasks) {
+        BatchConversionResult.FileTiming timing = new BatchConversionResult.FileTiming();
+        timing.setFileName(name);
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (SheetTask task : tasks) {
+            if (task.workbook != workbook) {
+                continue;
+            }
+            first = Math.min(first, task.startNanos);
+            last = Math.max(last, task.endNanos);
+            timing.setRows(timing.getRows() + task.rows);
+            timing.getSheets().add(new BatchConversionResult.SheetTiming(task.sheetName, task.rows,
+                    (task.endNanos - task.startNanos) / 1_000_000,
+                    task.keep ? "/api/download/" + task.target.getFileName() : null));
+        }
+        timing.setElapsedMillis(first <= last ? (last - first) / 1_000_000 : 0);
+        return timing;
+    }
+
+    /**
+     * Copies the uploads to the work directory, unpacking the workbooks of zip archives
+     */
+    private static List<Workbook> spool(List<MultipartFile> files, Path workDir) throws IOException {
+        List<Workbook> workbooks = new ArrayList<>();
+        for (MultipartFile file : files) {
+            String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : file.getName();
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".zip")) {
+                try (ZipInputStream zip = new ZipInputStream(file.getInputStream())) {
+                    ZipEntry entry;
+                    while ((entry = zip.getNextEntry()) != null) {
+                        if (isWorkbookEntry(entry)) {
+                            Path target = workDir.resolve("workbook_" + workbooks.size() + ".xlsx");
+                            Files.copy(zip, target);
+                            workbooks.add(new Workbook(name + "/" + entry.getName(), target));
+                        } else if (!entry.isDirectory()) {
+                            log.debug("Skipping {} in {}: not an Excel workbook", entry.getName(), name);
+                        }
+                    }
+                }
+            } else if (lower.endsWith(".xlsx")) {
+                Path target = workDir.resolve("workbook_" + workbooks.size() + ".xlsx");
+                try (InputStream in = file.getInputStream()) {
+                    Files.copy(in, target);
+                }
+                workbooks.add(new Workbook(name, target));
+            } else {
+                throw new IllegalArgumentException("Not an Excel workbook or zip archive: " + name);
+            }
+        }
+        return workbooks;
+    }
+
+    private static boolean isWorkbookEntry(ZipEntry entry) {
+        String name = entry.getName();
+        String baseName = name.substring(name.lastIndexOf('/') + 1);
+        // Skip macOS resource forks and Excel lock files
+        return !entry.isDirectory()
+                && name.toLowerCase(Locale.ROOT).endsWith(".xlsx")
+                && !name.startsWith("__MACOSX/")
+                && !baseName.startsWith("~$");
+    }
+
+    private static OPCPackage open(Workbook workbook) throws IOException {
+        try {
+            return OPCPackage.open(workbook.file.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Not a valid Excel workbook: " + workbook.name, e);
+        }
+    }
+
+    /**
+     * File-name-safe form of a workbook or sheet name, without the extension
+     */
+    static String safeName(String name) {
+        String base = name.substring(name.lastIndexOf('/') + 1);
+        if (base.toLowerCase(Locale.ROOT).endsWith(".xlsx")) {
+            base = base.substring(0, base.length() - 5);
+        }
+        String safe = base.replaceAll("[^A-Za-z0-9_-]+", "_");
+        return safe.length() > MAX_NAME_LENGTH ? safe.substring(0, MAX_NAME_LENGTH) : safe;
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Failed to delete {}", path, e);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to clean up {}", dir, e);
+        }
+    }
+
+    /**
+     * A spooled workbook and the name it was uploaded under
+     */
+    private static final class Workbook {
+
+        private final String name;
+        private final Path file;
+
+        Workbook(String name, Path file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+
+    /**
+     * Converts one sheet into its target file and records its timing. Tasks of one workbook
+     * share its reader; all per-row decoding state belongs to the task's own convert call.
+     */
+    private final class SheetTask implements Callable<Void> {
+
+        private final int workbook;
+        private final String sheetName;
+        private final XlsxSheetReader reader;
+        private final int sheetIndex;
+        private final Path target;
+        private final boolean keep;
+        private volatile long rows;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        SheetTask(int workbook, String sheetName, XlsxSheetReader reader, int sheetIndex, Path target, boolean keep) {
+            this.workbook = workbook;
+            this.sheetName = sheetName;
+            this.reader = reader;
+            this.sheetIndex = sheetIndex;
+            this.target = target;
+            this.keep = keep;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            startNanos = System.nanoTime();
+            try (OutputStream out = Files.newOutputStream(target)) {
+                // Sheets of their own file carry the header; parts are joined under one
+                rows = excelToCsvService.convert(reader, sheetIndex, out, keep);
+            }
+            endNanos = System.nanoTime();
+            log.debug("Converted sheet {} of workbook {}: {} rows", sheetName, workbook + 1, rows);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dataprocessor.service;
+
+import java.util.Locale;
+
+/**
+ * How a batch conversion lays out its CSV output
+ */
+public enum BatchOutput {
+
+    /** One CSV file per worksheet, each with its own header */
+    SHEETS,
+
+    /** A single CSV with one header, sheets in upload order then workbook order */
+    CONCATENATED;
+
+    /**
+     * Parses a request parameter value, case-insensitively
+     * @throws IllegalArgumentException if the value names no output
+     */
+    public static BatchOutput fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown batch output: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.ClassScoreDistribution;
+import com.example.dataprocessor.model.ClassScoreStats;
+import com.example.dataprocessor.model.ScoreSketch;
+import com.example.dataprocessor.repository.ClassStatsRepository;
+import com.example.dataprocessor.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-class score report read from the student_class_stats summary table, which imports
+ * keep up to date (see {@link ClassStatsRepository}). Answering touches one row per class,
+ * never the students table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassStatsService {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private final ClassStatsRepository classStatsRepository;
+    private final StudentRepository studentRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    public List<ClassScoreDistribution> getReport() {
+        return toReport(classStatsRepository.findAll());
+    }
+
+    /**
+     * Recomputes the summary table from the students table, for data that did not arrive
+     * through an import
+     */
+    public List<ClassScoreDistribution> rebuild() {
+        long start = System.nanoTime();
+        // The table lock taken by the rebuild lasts until this transaction ends
+        Map<String, ClassScoreStats> stats = new TransactionTemplate(transactionManager)
+                .execute(status -> classStatsRepository.rebuild());
+        log.info("Rebuilt class statistics for {} classes in {} ms", stats.size(), (System.nanoTime() - start) / 1_000_000);
+        return toReport(stats);
+    }
+
+    /**
+     * Fills the summary table once for students imported before it existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (classStatsRepository.findAll().isEmpty() && studentRepository.count() > 0) {
+            log.info("Class statistics are empty, computing them from the students table");
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                // The report stays empty until a rebuild is requested; the rest of the app is unaffected
+                log.error("Failed to compute class statistics", e);
+            }
+        }
+    }
+
+    private static List<ClassScoreDistribution> toReport(Map<String, ClassScoreStats> stats) {
+        List<ClassScoreDistribution> report = new ArrayList<>(stats.size());
+        for (Map.Entry<String, ClassScoreStats> entry : stats.entrySet()) {
+            ClassScoreStats value = entry.getValue();
+            ClassScoreDistribution distribution = new ClassScoreDistribution();
+            distribution.setClazz(entry.getKey().isEmpty() ? null : entry.getKey());
+            distribution.setCount(value.getCount());
+            distribution.setScoredCount(value.getScoredCount());
+            distribution.setMinScore(value.getMinScore());
+            distribution.setMaxScore(value.getMaxScore());
+            if (value.getScoredCount() > 0) {
+                distribution.setMeanScore((double) value.getScoreSum() / value.getScoredCount());
+            }
+            ScoreSketch sketch = value.getSketch();
+            for (double percentile : PERCENTILES) {
+                Double score = sketch.quantile(percentile);
+                if (score != null) {
+                    distribution.getPercentiles().put("p" + (int) Math.round(percentile * 100), score);
+                }
+            }
+            distribution.getHistogram().putAll(value.getHistogram());
+            report.add(distribution);
+        }
+        return report;
+    }
+}
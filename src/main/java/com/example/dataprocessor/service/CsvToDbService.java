@@ -1,40 +1,219 @@
 package com.example.dataprocessor.service;
 
+import com.example.dataprocessor.io.CsvPartitioner;
+import com.example.dataprocessor.io.CsvRowWriter;
+import com.example.dataprocessor.io.MappedCsvReader;
+import com.example.dataprocessor.io.PgBinaryCopyWriter;
+import com.example.dataprocessor.model.ImportResult;
+import com.example.dataprocessor.repository.ClassStatsRepository;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
 import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.postgresql.core.BaseConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class CsvToDbService {
 
     private static final Logger logger = LoggerFactory.getLogger(CsvToDbService.class);
     
+    /** Column order of every import stream; matches the students table mapped by {@link com.example.dataprocessor.model.Student} */
+    static final String[] CSV_HEADER = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
+    
+    static final String COPY_COLUMNS = "student_id,first_name,last_name,date_of_birth,class,score";
+    
+    static final String COPY_SQL = copySql("students", true);
+    
+    /** Loads rows written by a {@link PgBinaryCopyWriter}, in {@link #COPY_COLUMNS} order */
+    static final String BINARY_COPY_SQL = "COPY students(" + COPY_COLUMNS + ") FROM STDIN WITH (FORMAT binary)";
+    
+    /** Session-local staging table of upsert imports, dropped when the transaction ends */
+    private static final String UPSERT_STAGING_TABLE = "students_upsert";
+    
+    /**
+     * Keeps the last row of every student ID in the staging table, inserts the new IDs and
+     * updates existing students only where a value differs. xmax is 0 exactly for the rows
+     * the statement inserted, which tells inserts from updates in RETURNING.
+     */
+    private static final String UPSERT_MERGE_SQL = "WITH merged AS ("
+            + "INSERT INTO students(" + COPY_COLUMNS + ") "
+            + "SELECT DISTINCT ON (student_id) " + COPY_COLUMNS + " FROM " + UPSERT_STAGING_TABLE
+            + " ORDER BY student_id, import_seq DESC "
+            + "ON CONFLICT (student_id) DO UPDATE SET first_name = EXCLUDED.first_name, "
+            + "last_name = EXCLUDED.last_name, date_of_birth = EXCLUDED.date_of_birth, "
+            + "class = EXCLUDED.class, score = EXCLUDED.score "
+            + "WHERE (students.first_name, students.last_name, students.date_of_birth, students.class, students.score) "
+            + "IS DISTINCT FROM (EXCLUDED.first_name, EXCLUDED.last_name, EXCLUDED.date_of_birth, EXCLUDED.class, EXCLUDED.score) "
+            + "RETURNING xmax = 0 AS inserted) "
+            + "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted), "
+            + "(SELECT count(DISTINCT student_id) FROM " + UPSERT_STAGING_TABLE + ") FROM merged";
+    
+    /** Table a reload is built in before it is renamed to students */
+    private static final String RELOAD_TABLE = "students_reload";
+    
+    /** Indexes of students, with the constraint each one backs, if any */
+    private static final String INDEXES_SQL = "SELECT c.relname, pg_get_indexdef(i.indexrelid), con.conname, "
+            + "pg_get_constraintdef(con.oid) FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+            + "LEFT JOIN pg_constraint con ON con.conindid = i.indexrelid AND con.conrelid = i.indrelid "
+            + "WHERE i.indrelid = 'students'::regclass ORDER BY c.relname";
+    
+    /** CSV score = (Excel score + 10), DB score = (Excel score + 5) ==> DB score = csvScore - 5 */
+    static final int DB_SCORE_ADJUSTMENT = -5;
+    
     @Autowired
     private DataSource dataSource;
+    
+    @Autowired
+    private StudentDataVersion dataVersion;
+    
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    
+    @Autowired
+    private ClassStatsRepository classStatsRepository;
+    
+    @Value("${app.import.copy-buffer-size:262144}")
+    private int copyBufferSize;
+    
+    @Value("${app.import.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${app.import.reload-maintenance-work-mem:256MB}")
+    private String reloadMaintenanceWorkMem;
+    
+    private ExecutorService copyExecutor;
+    
+    /**
+     * Sets the COPY and import file buffer size where Spring does not inject it
+     */
+    void setCopyBufferSize(int copyBufferSize) {
+        this.copyBufferSize = copyBufferSize;
+    }
+    
+    /**
+     * Writes an import stream in {@link #COPY_SQL} format
+     */
+    @FunctionalInterface
+    interface CopyWriter {
+        void write(OutputStream out) throws Exception;
+    }
 
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        copyExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "csv-copy-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        copyExecutor.shutdownNow();
+    }
+    
+    /**
+     * Builds a COPY statement loading the import columns from CSV on stdin
+     * @param table Target table
+     * @param header Whether the stream starts with a header line
+     */
+    static String copySql(String table, boolean header) {
+        return "COPY " + table + "(" + COPY_COLUMNS + ") FROM STDIN WITH CSV" + (header ? " HEADER" : "");
+    }
+    
+    /**
+     * Imports CSV file to database with score adjustment, staging it in temp files
+     * @param csvFile MultipartFile containing the CSV data
+     * @return Import outcome
+     * @throws Exception if import fails
+     */
+    public ImportResult importCsvToDb(MultipartFile csvFile) throws Exception {
+        return importCsvToDb(csvFile, ImportMode.FILE);
+    }
+    
     /**
      * Imports CSV file to database with score adjustment
      * @param csvFile MultipartFile containing the CSV data
+     * @param mode How the upload is moved into the database
+     * @return Import outcome
      * @throws Exception if import fails
      */
-    public void importCsvToDb(MultipartFile csvFile) throws Exception {
-        logger.info("Starting CSV import to database: {}", csvFile.getOriginalFilename());
+    public ImportResult importCsvToDb(MultipartFile csvFile, ImportMode mode) throws Exception {
+        logger.info("Starting {} CSV import to database: {}", mode, csvFile.getOriginalFilename());
+        long start = System.nanoTime();
+        String variant = mode.name().toLowerCase();
+        
+        ImportResult result;
+        try {
+            result = importWith(csvFile, mode);
+        } catch (Exception e) {
+            pipelineMetrics.failed(PipelineMetrics.Stage.IMPORT, variant, start);
+            throw e;
+        }
         
+        result.setMode(variant);
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        // Every mode has committed by now
+        dataVersion.changed("csv-import");
+        pipelineMetrics.record(PipelineMetrics.Stage.IMPORT, variant, start, result.getRowsImported(), csvFile.getSize(), 0);
+        pipelineMetrics.skipped(PipelineMetrics.Stage.IMPORT, variant, result.getRowsSkipped());
+        logger.info("Successfully imported CSV to database: {} rows, {} skipped, {} rows/s",
+                result.getRowsImported(), result.getRowsSkipped(), result.getRowsPerSecond());
+        return result;
+    }
+    
+    private ImportResult importWith(MultipartFile csvFile, ImportMode mode) throws Exception {
+        switch (mode) {
+            case STREAMING:
+                return importStreaming(csvFile);
+            case BINARY:
+                return importBinary(csvFile);
+            case PARALLEL:
+                return importParallel(csvFile);
+            case UPSERT:
+                return importUpsert(csvFile);
+            case RELOAD:
+                return importReload(csvFile);
+            case FILE:
+            default:
+                return importViaTempFiles(csvFile);
+        }
+    }
+    
+    private ImportResult importViaTempFiles(MultipartFile csvFile) throws Exception {
         Path tempCsvFile = null;
         Path tempImportFile = null;
         
@@ -46,13 +225,16 @@ public class CsvToDbService {
             
             // Create temp import CSV with adjusted scores
             tempImportFile = Files.createTempFile("import_csv_", ".csv");
-            adjustScoresAndCreateImportFile(tempCsvFile, tempImportFile);
+            ImportStatsCollector stats = new ImportStatsCollector();
+            long skipped = adjustScoresAndCreateImportFile(tempCsvFile, tempImportFile, stats);
             logger.debug("Created temp import file with adjusted scores: {}", tempImportFile);
+            pipelineMetrics.tempFile(PipelineMetrics.Stage.IMPORT, "upload", tempCsvFile);
+            pipelineMetrics.tempFile(PipelineMetrics.Stage.IMPORT, "import", tempImportFile);
             
             // Import to database using PostgreSQL CopyManager
-            importToDatabase(tempImportFile);
+            long imported = importToDatabase(tempImportFile, stats);
             
-            logger.info("Successfully imported CSV to database");
+            return new ImportResult(null, imported, skipped, 0);
             
         } finally {
             // Cleanup temp files
@@ -61,68 +243,704 @@ public class CsvToDbService {
         }
     }
     
+    /**
+     * Parses the upload once and streams the score-adjusted rows into COPY; memory use is
+     * bounded by the CSV reader's line buffer and the COPY buffer, not by the file size
+     * @param csvFile MultipartFile containing the CSV data
+     * @return Import outcome
+     * @throws Exception if import fails
+     */
+    private ImportResult importStreaming(MultipartFile csvFile) throws Exception {
+        long[] skipped = new long[1];
+        ImportStatsCollector stats = new ImportStatsCollector();
+        long imported = copyIn(out -> {
+            try (CSVReader reader = new CSVReader(new InputStreamReader(csvFile.getInputStream(), StandardCharsets.UTF_8))) {
+                CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                skipped[0] = adjustScores(reader, writer, stats);
+                // Flush only: closing would end the COPY before its row count is read
+                writer.flush();
+            }
+        }, stats);
+        return new ImportResult(null, imported, skipped[0], 0);
+    }
+    
+    /**
+     * Parses the upload once and streams the rows into a binary COPY. IDs, dates of birth
+     * and adjusted scores are sent as int8, date and int4, so the server stores them
+     * without parsing text again.
+     * @param csvFile MultipartFile containing the CSV data
+     * @return Import outcome
+     * @throws IllegalArgumentException if a student ID or date of birth is not valid
+     * @throws Exception if the COPY fails; nothing is imported in that case
+     */
+    private ImportResult importBinary(MultipartFile csvFile) throws Exception {
+        long[] skipped = new long[1];
+        ImportStatsCollector stats = new ImportStatsCollector();
+        long imported = copyIn(BINARY_COPY_SQL, out -> {
+            try (CSVReader reader = new CSVReader(new InputStreamReader(csvFile.getInputStream(), StandardCharsets.UTF_8))) {
+                // Closing writes the trailer; the COPY itself is ended by copyIn
+                try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(out, copyBufferSize)) {
+                    skipped[0] = encodeBinary(reader, writer, stats);
+                }
+            }
+        }, stats);
+        return new ImportResult(null, imported, skipped[0], 0);
+    }
+    
+    /**
+     * Splits the upload at row boundaries and runs one COPY per part, each on its own pooled
+     * connection, into an UNLOGGED staging table without indexes. The staged rows are then
+     * moved into students with a single INSERT ... SELECT, so the import is all-or-nothing.
+     * @param csvFile MultipartFile containing the CSV data
+     * @return Import outcome with per-stream throughput
+     * @throws Exception if any stream or the merge fails; students is left untouched then
+     */
+    private ImportResult importParallel(MultipartFile csvFile) throws Exception {
+        Path tempCsvFile = null;
+        String stagingTable = null;
+        
+        try {
+            // The parts are read concurrently, so the upload needs to be on disk
+            tempCsvFile = Files.createTempFile("uploaded_csv_", ".csv");
+            csvFile.transferTo(tempCsvFile.toFile());
+            pipelineMetrics.tempFile(PipelineMetrics.Stage.IMPORT, "upload", tempCsvFile);
+            
+            List<CsvPartitioner.Range> ranges = CsvPartitioner.split(tempCsvFile, parallelism);
+            if (ranges.isEmpty()) {
+                return new ImportResult(null, 0, 0, 0);
+            }
+            
+            stagingTable = createStagingTable();
+            ImportStatsCollector stats = new ImportStatsCollector();
+            List<ImportResult.StreamStats> streams = copyPartitions(tempCsvFile, ranges, stagingTable, stats);
+            
+            long imported = mergeStagingTable(stagingTable, stats);
+            long skipped = 0;
+            for (ImportResult.StreamStats stream : streams) {
+                skipped += stream.getSkipped();
+            }
+            
+            ImportResult result = new ImportResult(null, imported, skipped, 0);
+            result.setStreams(streams);
+            return result;
+            
+        } finally {
+            dropStagingTable(stagingTable);
+            cleanupTempFile(tempCsvFile);
+        }
+    }
+    
+    /**
+     * Streams the score-adjusted upload with COPY into a temporary staging table and merges
+     * it into students with one INSERT ... ON CONFLICT (student_id) DO UPDATE, all in one
+     * transaction. Existing students are updated only where a value changed, and a student
+     * ID repeated in the upload takes its last row, so importing the same file again
+     * changes nothing and never fails on duplicate keys.
+     * @param csvFile MultipartFile containing the CSV data
+     * @return Import outcome with inserted, updated, unchanged and duplicate counts
+     * @throws Exception if the COPY or the merge fails; students is left untouched then
+     */
+    private ImportResult importUpsert(MultipartFile csvFile) throws Exception {
+        long[] skipped = new long[1];
+        ImportStatsCollector stats = new ImportStatsCollector();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    // Temporary: no WAL, no indexes; import_seq records the order of the rows
+                    statement.execute("CREATE TEMPORARY TABLE " + UPSERT_STAGING_TABLE
+                            + " (LIKE students INCLUDING DEFAULTS, import_seq bigserial) ON COMMIT DROP");
+                }
+                long copied = copy(connection, copySql(UPSERT_STAGING_TABLE, true), out -> {
+                    try (CSVReader reader = new CSVReader(new InputStreamReader(csvFile.getInputStream(), StandardCharsets.UTF_8))) {
+                        CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                        skipped[0] = adjustScores(reader, writer, stats);
+                        writer.flush();
+                    }
+                });
+                
+                ImportResult.MergeCounts counts;
+                try (Statement statement = connection.createStatement()) {
+                    // Temporary tables are never analyzed automatically
+                    statement.execute("ANALYZE " + UPSERT_STAGING_TABLE);
+                    try (ResultSet resultSet = statement.executeQuery(UPSERT_MERGE_SQL)) {
+                        resultSet.next();
+                        long inserted = resultSet.getLong(1);
+                        long updated = resultSet.getLong(2);
+                        long distinct = resultSet.getLong(3);
+                        counts = new ImportResult.MergeCounts(inserted, updated, distinct - inserted - updated, copied - distinct);
+                    }
+                }
+                
+                if (counts.getInserted() == copied) {
+                    // Only new students: the collected aggregates are exactly the change
+                    classStatsRepository.merge(connection, stats.getClasses());
+                } else if (counts.getInserted() + counts.getUpdated() > 0) {
+                    // Updated rows would have to leave their old buckets, which sketches cannot undo
+                    classStatsRepository.rebuild(connection);
+                }
+                connection.commit();
+                logger.info("Upserted {} rows: {} inserted, {} updated, {} unchanged, {} duplicates",
+                        copied, counts.getInserted(), counts.getUpdated(), counts.getUnchanged(), counts.getDuplicates());
+                
+                ImportResult result = new ImportResult(null, counts.getInserted() + counts.getUpdated(), skipped[0], 0);
+                result.setMerge(counts);
+                return result;
+            } finally {
+                // No-op after a commit; drops the staging table otherwise
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Database import failed", e);
+            throw new Exception("Failed to import CSV to database: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Replaces every student with the upload in one transaction. The rows are COPYed with
+     * FREEZE into a shadow table created in that transaction, so the load neither maintains
+     * indexes nor leaves tuples for vacuum to freeze later. The indexes and constraints of
+     * students are then built on the shadow table in one pass each, the table is analyzed,
+     * and it replaces students by drop and rename just before the commit.
+     *
+     * Writers to students wait from the start; readers keep using the old table until the
+     * swap, which holds an exclusive lock only for the few catalog statements it runs.
+     * @param csvFile MultipartFile containing the complete new data set
+     * @return Import outcome
+     * @throws Exception if the load fails; students is left untouched then
+     */
+    private ImportResult importReload(MultipartFile csvFile) throws Exception {
+        long[] skipped = new long[1];
+        ImportStatsCollector stats = new ImportStatsCollector();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long start = System.nanoTime();
+                try (Statement statement = connection.createStatement()) {
+                    // Other imports would write to the table about to be dropped
+                    statement.execute("LOCK TABLE students IN EXCLUSIVE MODE");
+                    statement.execute("CREATE TABLE " + RELOAD_TABLE + " (LIKE students INCLUDING DEFAULTS)");
+                }
+                long copied = copy(connection, "COPY " + RELOAD_TABLE + "(" + COPY_COLUMNS
+                        + ") FROM STDIN WITH (FORMAT csv, HEADER true, FREEZE true)", out -> {
+                    try (CSVReader reader = new CSVReader(new InputStreamReader(csvFile.getInputStream(), StandardCharsets.UTF_8))) {
+                        CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                        skipped[0] = adjustScores(reader, writer, stats);
+                        writer.flush();
+                    }
+                });
+                long loaded = System.nanoTime();
+                
+                List<String> renames = buildReloadIndexes(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE " + RELOAD_TABLE);
+                }
+                long indexed = System.nanoTime();
+                
+                swapReloadTable(connection, renames);
+                classStatsRepository.replace(connection, stats.getClasses());
+                connection.commit();
+                logger.info("Reloaded students with {} rows: COPY {} ms, indexes and ANALYZE {} ms, swap {} ms",
+                        copied, (loaded - start) / 1_000_000, (indexed - loaded) / 1_000_000,
+                        (System.nanoTime() - indexed) / 1_000_000);
+                return new ImportResult(null, copied, skipped[0], 0);
+            } finally {
+                // No-op after a commit; drops the shadow table otherwise
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Database reload failed", e);
+            throw new Exception("Failed to import CSV to database: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Recreates the indexes and constraints of students on the shadow table under
+     * temporary names, as index names are unique per schema
+     * @return Statements giving them the names of the originals once students is dropped
+     */
+    private List<String> buildReloadIndexes(Connection connection) throws SQLException {
+        List<String> creates = new ArrayList<>();
+        List<String> renames = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(INDEXES_SQL)) {
+            while (resultSet.next()) {
+                String temporaryName = RELOAD_TABLE + "_idx" + creates.size();
+                String constraint = resultSet.getString(3);
+                if (constraint != null) {
+                    // Primary key and unique constraints create their index themselves
+                    creates.add("ALTER TABLE " + RELOAD_TABLE + " ADD CONSTRAINT " + temporaryName + " "
+                            + resultSet.getString(4));
+                    renames.add("ALTER TABLE students RENAME CONSTRAINT " + temporaryName + " TO " + constraint);
+                } else {
+                    // "CREATE [UNIQUE] INDEX name ON schema.students USING ..."
+                    String definition = resultSet.getString(2);
+                    creates.add((definition.startsWith("CREATE UNIQUE ") ? "CREATE UNIQUE INDEX " : "CREATE INDEX ")
+                            + temporaryName + " ON " + RELOAD_TABLE + definition.substring(definition.indexOf(" USING ")));
+                    renames.add("ALTER INDEX " + temporaryName + " RENAME TO " + resultSet.getString(1));
+                }
+            }
+        }
+        
+        try (PreparedStatement setting = connection.prepareStatement("SELECT set_config('maintenance_work_mem', ?, true)")) {
+            // Sort memory of the index builds, for this transaction only
+            setting.setString(1, reloadMaintenanceWorkMem);
+            setting.execute();
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String create : creates) {
+                long start = System.nanoTime();
+                statement.execute(create);
+                logger.debug("{} took {} ms", create, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+        return renames;
+    }
+    
+    /**
+     * Drops students and renames the shadow table and its indexes into place. The ID
+     * sequence belongs to the students.student_id column, so it is handed to the shadow
+     * table first rather than dropped along with the old one.
+     */
+    private void swapReloadTable(Connection connection, List<String> renames) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            String sequence;
+            try (ResultSet resultSet = statement.executeQuery("SELECT pg_get_serial_sequence('students', 'student_id')")) {
+                resultSet.next();
+                sequence = resultSet.getString(1);
+            }
+            if (sequence != null) {
+                statement.execute("ALTER SEQUENCE " + sequence + " OWNED BY " + RELOAD_TABLE + ".student_id");
+            }
+            statement.execute("DROP TABLE students");
+            statement.execute("ALTER TABLE " + RELOAD_TABLE + " RENAME TO students");
+            for (String rename : renames) {
+                statement.execute(rename);
+            }
+        }
+    }
+    
+    /**
+     * @param stats Receives the merged aggregates of all partitions
+     */
+    private List<ImportResult.StreamStats> copyPartitions(Path csvFile, List<CsvPartitioner.Range> ranges,
+                                                          String stagingTable, ImportStatsCollector stats) throws Exception {
+        List<Future<ImportResult.StreamStats>> futures = new ArrayList<>(ranges.size());
+        List<ImportStatsCollector> partitionStats = new ArrayList<>(ranges.size());
+        for (CsvPartitioner.Range range : ranges) {
+            // One collector per stream, merged once all streams are done
+            ImportStatsCollector collector = new ImportStatsCollector();
+            partitionStats.add(collector);
+            futures.add(copyExecutor.submit(JobContext.propagate(() -> copyPartition(csvFile, range, stagingTable, collector))));
+        }
+        
+        List<ImportResult.StreamStats> streams = new ArrayList<>(ranges.size());
+        try {
+            for (Future<ImportResult.StreamStats> future : futures) {
+                streams.add(future.get());
+            }
+            for (ImportStatsCollector collector : partitionStats) {
+                stats.merge(collector);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } finally {
+            for (Future<ImportResult.StreamStats> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return streams;
+    }
+    
+    private ImportResult.StreamStats copyPartition(Path csvFile, CsvPartitioner.Range range,
+                                                   String stagingTable, ImportStatsCollector rowStats) throws Exception {
+        long start = System.nanoTime();
+        long[] skipped = new long[1];
+        
+        long rows = copyIn(copySql(stagingTable, false), out -> {
+            try (CSVReader reader = new CSVReader(new InputStreamReader(range.open(csvFile), StandardCharsets.UTF_8))) {
+                CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                skipped[0] = adjustRows(reader, writer, rowStats);
+                writer.flush();
+            }
+        }, null);
+        
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        ImportResult.StreamStats stats = new ImportResult.StreamStats(range.getIndex(), range.length(), rows,
+                skipped[0], elapsedMillis);
+        logger.info("COPY stream {} loaded {} rows ({} bytes) in {} ms, {} rows/s",
+                stats.getStream(), rows, stats.getBytes(), elapsedMillis, stats.getRowsPerSecond());
+        return stats;
+    }
+    
+    private String createStagingTable() throws SQLException {
+        String stagingTable = "students_staging_" + Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            // LIKE without INCLUDING INDEXES/CONSTRAINTS: no primary key to maintain while loading
+            statement.execute("CREATE UNLOGGED TABLE " + stagingTable + " (LIKE students INCLUDING DEFAULTS)");
+        }
+        logger.debug("Created staging table {}", stagingTable);
+        return stagingTable;
+    }
+    
+    private long mergeStagingTable(String stagingTable, ImportStatsCollector stats) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                long merged = statement.executeUpdate("INSERT INTO students(" + COPY_COLUMNS + ") SELECT "
+                        + COPY_COLUMNS + " FROM " + stagingTable);
+                classStatsRepository.merge(connection, stats.getClasses());
+                connection.commit();
+                logger.info("Merged {} rows from {} into students", merged, stagingTable);
+                return merged;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+    
+    private void dropStagingTable(String stagingTable) {
+        if (stagingTable == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + stagingTable);
+        } catch (SQLException e) {
+            logger.warn("Failed to drop staging table: {}", stagingTable, e);
+        }
+    }
+    
     /**
      * Adjusts scores in CSV and creates import file
      * CSV score = (Excel score + 10), DB score = (Excel score + 5) ==> DB score = csvScore - 5
+     *
+     * The source is tokenized from a memory-mapped window and every field but the score is
+     * copied to the target as the UTF-8 bytes it was read as, so a row costs no Strings.
      * @param sourceCsv Source CSV file
      * @param targetCsv Target CSV file for import
+     * @param stats Receives every imported row
+     * @return Number of rows skipped
      * @throws Exception if processing fails
      */
-    private void adjustScoresAndCreateImportFile(Path sourceCsv, Path targetCsv) throws Exception {
-        try (CSVReader reader = new CSVReader(new FileReader(sourceCsv.toFile()));
-             CSVWriter writer = new CSVWriter(new FileWriter(targetCsv.toFile()))) {
+    long adjustScoresAndCreateImportFile(Path sourceCsv, Path targetCsv, ImportStatsCollector stats) throws Exception {
+        try (MappedCsvReader reader = new MappedCsvReader(sourceCsv);
+             OutputStream out = Files.newOutputStream(targetCsv);
+             CsvRowWriter writer = new CsvRowWriter(out, copyBufferSize)) {
             
-            String[] header = reader.readNext();
-            if (header == null) {
+            if (!reader.next()) {
                 throw new IllegalArgumentException("CSV file is empty");
             }
-            
             // Write header to import file
-            writer.writeNext(header);
+            for (int i = 0; i < reader.getFieldCount(); i++) {
+                reader.copyTo(i, writer);
+            }
+            writer.endRow();
             
-            String[] row;
-            while ((row = reader.readNext()) != null) {
-                if (row.length < 6) {
-                    logger.warn("Skipping row with insufficient columns: {}", String.join(",", row));
+            long skipped = 0;
+            int sinceReport = 0;
+            while (reader.next()) {
+                if (++sinceReport == JobContext.REPORT_INTERVAL) {
+                    JobContext.addRows(sinceReport);
+                    sinceReport = 0;
+                }
+                int fieldCount = reader.getFieldCount();
+                if (fieldCount < 6) {
+                    logger.warn("Skipping row with insufficient columns: {}", rowText(reader));
+                    skipped++;
                     continue;
                 }
                 
                 // Adjust score: DB score = CSV score - 5
-                try {
-                    int csvScore = Integer.parseInt(row[5].trim());
-                    int dbScore = csvScore - 5;
-                    row[5] = String.valueOf(dbScore);
-                    
-                    logger.debug("Adjusted score: CSV={}, DB={}", csvScore, dbScore);
-                } catch (NumberFormatException e) {
-                    logger.warn("Invalid score format in row, using 0: {}", row[5]);
-                    row[5] = "-5"; // 0 - 5 = -5
-                }
+                int score = dbScore(reader, 5);
+                stats.add(reader, 4, score);
                 
-                writer.writeNext(row);
+                for (int i = 0; i < fieldCount; i++) {
+                    if (i == 5) {
+                        writer.field(score);
+                    } else {
+                        reader.copyTo(i, writer);
+                    }
+                }
+                writer.endRow();
+            }
+            JobContext.addRows(sinceReport);
+            return skipped;
+        }
+    }
+    
+    private static String rowText(MappedCsvReader reader) {
+        String[] fields = new String[reader.getFieldCount()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = reader.getString(i);
+        }
+        return String.join(",", fields);
+    }
+    
+    /**
+     * Copies CSV rows from reader to writer, adjusting the score column
+     * @param reader Source rows, header first
+     * @param writer Target for the header and adjusted rows
+     * @param stats Receives every imported row
+     * @return Number of rows skipped
+     * @throws Exception if reading or writing fails
+     */
+    long adjustScores(CSVReader reader, CSVWriter writer, ImportStatsCollector stats) throws Exception {
+        String[] header = reader.readNext();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        
+        // Write header to import file
+        writer.writeNext(header);
+        
+        return adjustRows(reader, writer, stats);
+    }
+    
+    /**
+     * Copies header-less CSV rows from reader to writer, adjusting the score column
+     * @return Number of rows skipped
+     */
+    private long adjustRows(CSVReader reader, CSVWriter writer, ImportStatsCollector stats) throws Exception {
+        long skipped = 0;
+        int sinceReport = 0;
+        String[] row;
+        while ((row = reader.readNext()) != null) {
+            if (++sinceReport == JobContext.REPORT_INTERVAL) {
+                JobContext.addRows(sinceReport);
+                sinceReport = 0;
             }
+            if (row.length < 6) {
+                logger.warn("Skipping row with insufficient columns: {}", String.join(",", row));
+                skipped++;
+                continue;
+            }
+            
+            // Adjust score: DB score = CSV score - 5
+            int score = dbScore(row[5]);
+            row[5] = String.valueOf(score);
+            stats.add(row[4], score);
             
-            writer.flush();
+            writer.writeNext(row);
+        }
+        JobContext.addRows(sinceReport);
+        return skipped;
+    }
+    
+    /**
+     * Encodes CSV rows as binary COPY rows, adjusting the score column
+     * @param reader Source rows, header first
+     * @param writer Target of the rows in {@link #COPY_COLUMNS} order
+     * @param stats Receives every imported row
+     * @return Number of rows skipped
+     * @throws IllegalArgumentException if a student ID or date of birth is not valid
+     */
+    long encodeBinary(CSVReader reader, PgBinaryCopyWriter writer, ImportStatsCollector stats) throws Exception {
+        if (reader.readNext() == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        
+        long skipped = 0;
+        int sinceReport = 0;
+        String[] row;
+        while ((row = reader.readNext()) != null) {
+            if (++sinceReport == JobContext.REPORT_INTERVAL) {
+                JobContext.addRows(sinceReport);
+                sinceReport = 0;
+            }
+            if (row.length < 6) {
+                logger.warn("Skipping row with insufficient columns: {}", String.join(",", row));
+                skipped++;
+                continue;
+            }
+            
+            int score = dbScore(row[5]);
+            stats.add(row[4], score);
+            
+            writer.startRow(6);
+            try {
+                writer.int8(Long.parseLong(row[0].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid student ID on line " + reader.getLinesRead() + ": " + row[0], e);
+            }
+            writer.text(row[1]);
+            writer.text(row[2]);
+            String dob = row[3].trim();
+            if (dob.isEmpty()) {
+                writer.nullField();
+            } else {
+                writer.date(epochDay(dob, reader.getLinesRead()));
+            }
+            writer.text(row[4]);
+            writer.int4(score);
+        }
+        JobContext.addRows(sinceReport);
+        return skipped;
+    }
+    
+    /**
+     * Parses a yyyy-MM-dd date of birth, digit by digit when it has exactly that shape
+     * @return Days since 1970-01-01
+     */
+    private static long epochDay(String value, long line) {
+        try {
+            if (value.length() == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+                int year = digits(value, 0, 4);
+                int month = digits(value, 5, 7);
+                int day = digits(value, 8, 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day).toEpochDay();
+                }
+            }
+            return LocalDate.parse(value).toEpochDay();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid date of birth on line " + line + ": " + value, e);
+        }
+    }
+    
+    /**
+     * @return The decimal value of {@code value[from, to)}, or -1 if it has a non-digit
+     */
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+    
+    /**
+     * Converts a CSV score to the score stored in the database
+     * @param csvScore Score column as read from the CSV
+     * @return Adjusted score, or the adjustment of 0 if the score is not a number
+     */
+    int dbScore(String csvScore) {
+        try {
+            return Integer.parseInt(csvScore.trim()) + DB_SCORE_ADJUSTMENT;
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid score format in row, using 0: {}", csvScore);
+            return DB_SCORE_ADJUSTMENT; // 0 - 5 = -5
+        }
+    }
+    
+    /**
+     * Converts the score field of a mapped CSV row like {@link #dbScore(String)}
+     */
+    private int dbScore(MappedCsvReader reader, int field) {
+        try {
+            return reader.parseInt(field) + DB_SCORE_ADJUSTMENT;
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid score format in row, using 0: {}", reader.getString(field));
+            return DB_SCORE_ADJUSTMENT;
+        }
+    }
+    
+    /**
+     * Streams rows produced by a writer straight into a PostgreSQL COPY, without staging
+     * them in a file. Bytes reach the server in buffers of app.import.copy-buffer-size.
+     * @param writer Producer of the CSV stream, header included
+     * @param stats Filled by the writer; merged into the class statistics when the rows commit
+     * @return Number of rows imported
+     * @throws Exception if the writer or the COPY fails; nothing is imported in that case
+     */
+    long copyIn(CopyWriter writer, ImportStatsCollector stats) throws Exception {
+        return copyIn(COPY_SQL, writer, stats);
+    }
+    
+    /**
+     * Streams rows produced by a writer into a PostgreSQL COPY on a connection of its own
+     * @param copySql COPY ... FROM STDIN statement matching the writer's output
+     * @param writer Producer of the CSV stream
+     * @param stats Filled by the writer and merged into the class statistics in the COPY's
+     *              transaction, or null when the target is not students
+     * @return Number of rows imported
+     * @throws Exception if the writer or the COPY fails; nothing is imported in that case
+     */
+    long copyIn(String copySql, CopyWriter writer, ImportStatsCollector stats) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            if (stats != null) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                long rowsImported = copy(connection, copySql, writer);
+                if (stats != null) {
+                    classStatsRepository.merge(connection, stats.getClasses());
+                    connection.commit();
+                }
+                logger.info("Successfully imported {} rows to database", rowsImported);
+                return rowsImported;
+            } finally {
+                if (stats != null) {
+                    // No-op after a commit
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Database import failed", e);
+            throw new Exception("Failed to import CSV to database: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Runs one COPY ... FROM STDIN on the given connection, fed by a writer through a buffer
+     * of app.import.copy-buffer-size
+     * @return Number of rows copied
+     */
+    private long copy(Connection connection, String copySql, CopyWriter writer) throws Exception {
+        CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+        long start = System.nanoTime();
+        PGCopyOutputStream copyStream = new PGCopyOutputStream(copyManager.copyIn(copySql), copyBufferSize);
+        try {
+            writer.write(copyStream);
+            long rows = copyStream.endCopy();
+            pipelineMetrics.copy(start, rows);
+            return rows;
+        } finally {
+            if (copyStream.isActive()) {
+                copyStream.cancelCopy();
+            }
         }
     }
     
     /**
      * Imports CSV file to database using PostgreSQL CopyManager
      * @param csvFile Path to CSV file for import
+     * @param stats Aggregates of the file's rows, stored in the same transaction
+     * @return Number of rows imported
      * @throws Exception if import fails
      */
-    private void importToDatabase(Path csvFile) throws Exception {
+    private long importToDatabase(Path csvFile, ImportStatsCollector stats) throws Exception {
         Connection connection = null;
         try {
             connection = dataSource.getConnection();
             BaseConnection baseConnection = connection.unwrap(BaseConnection.class);
             CopyManager copyManager = new CopyManager(baseConnection);
             
+            connection.setAutoCommit(false);
             try (InputStream inputStream = Files.newInputStream(csvFile)) {
-                String copySql = "COPY students(studentid,firstname,lastname,dob,clazz,score) FROM STDIN WITH CSV HEADER";
-                
-                long rowsImported = copyManager.copyIn(copySql, inputStream);
+                long start = System.nanoTime();
+                long rowsImported = copyManager.copyIn(COPY_SQL, inputStream);
+                pipelineMetrics.copy(start, rowsImported);
+                classStatsRepository.merge(connection, stats.getClasses());
+                connection.commit();
                 logger.info("Successfully imported {} rows to database", rowsImported);
+                return rowsImported;
+            } finally {
+                // No-op after a commit
+                connection.rollback();
+                connection.setAutoCommit(true);
             }
             
         } catch (SQLException e) {
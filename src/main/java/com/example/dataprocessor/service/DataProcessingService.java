@@ -1,16 +1,30 @@
 package com.example.dataprocessor.service;
 
+import com.example.dataprocessor.io.CountingOutputStream;
+import com.example.dataprocessor.model.BatchConversionResult;
+import com.example.dataprocessor.model.CursorPage;
+import com.example.dataprocessor.model.ExportArtifact;
+import com.example.dataprocessor.model.ImportResult;
 import com.example.dataprocessor.model.Student;
+import com.example.dataprocessor.model.StudentCursor;
+import com.example.dataprocessor.model.StudentSortField;
+import com.example.dataprocessor.repository.StudentExportRepository;
 import com.example.dataprocessor.repository.StudentRepository;
+import com.example.dataprocessor.repository.StudentSpecifications;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 @Service
@@ -21,11 +35,21 @@ public class DataProcessingService {
     private final StudentRepository studentRepository;
     private final ExcelGeneratorService excelGeneratorService;
     private final ExcelToCsvService excelToCsvService;
+    private final BatchConversionService batchConversionService;
     private final CsvToDbService csvToDbService;
+    private final ExcelIngestService excelIngestService;
+    private final ExportService exportService;
+    private final StudentExportRepository studentExportRepository;
+    private final StudentQueryCache studentQueryCache;
+    private final PipelineMetrics pipelineMetrics;
     
     public String generateExcelFile(int count) throws IOException {
+        return generateExcelFile(count, null);
+    }
+    
+    public String generateExcelFile(int count, Long seed) throws IOException {
         log.info("Generating Excel file with {} records", count);
-        Path filePath = excelGeneratorService.generateExcel(count);
+        Path filePath = excelGeneratorService.generateExcel(count, seed);
         return filePath.toString();
     }
     
@@ -35,28 +59,101 @@ public class DataProcessingService {
         return csvPath.toString();
     }
     
-    public void importCsvToDatabase(MultipartFile file) throws Exception {
-        log.info("Importing CSV file to database: {}", file.getOriginalFilename());
-        csvToDbService.importCsvToDb(file);
+    public BatchConversionResult convertExcelBatch(List<MultipartFile> files, BatchOutput output) throws IOException {
+        log.info("Converting {} uploads to CSV ({})", files.size(), output);
+        return batchConversionService.convert(files, output);
+    }
+    
+    public ImportResult importCsvToDatabase(MultipartFile file) throws Exception {
+        return importCsvToDatabase(file, ImportMode.FILE);
+    }
+    
+    public ImportResult importCsvToDatabase(MultipartFile file, ImportMode mode) throws Exception {
+        log.info("Importing CSV file to database ({}): {}", mode, file.getOriginalFilename());
+        return csvToDbService.importCsvToDb(file, mode);
+    }
+    
+    public long ingestExcelToDatabase(MultipartFile file) throws Exception {
+        log.info("Ingesting Excel file to database: {}", file.getOriginalFilename());
+        return excelIngestService.ingestExcel(file);
     }
     
+    /**
+     * Offset page of the students matching the filters, served from the query cache when possible
+     */
     public Page<Student> getStudents(Long studentId, String clazz, String search, Pageable pageable) {
-        return studentRepository.findByFilters(studentId, clazz, search, pageable);
-    }
-    
-    public List<Student> getAllStudentsForExport(Long studentId, String clazz, String search) {
-        if (studentId != null && clazz != null) {
-            return studentRepository.findByFilters(studentId, clazz, search, Pageable.unpaged()).getContent();
-        } else if (studentId != null) {
-            return studentRepository.findAll().stream()
-                    .filter(s -> s.getStudentId().equals(studentId))
-                    .toList();
-        } else if (clazz != null) {
-            return studentRepository.findAll().stream()
-                    .filter(s -> clazz.equals(s.getClazz()))
-                    .toList();
-        } else {
-            return studentRepository.findAll();
+        long start = System.nanoTime();
+        String key = StudentQueryCache.key("page", studentId, clazz, search,
+                pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+        Page<Student> students = studentQueryCache.get(key,
+                () -> studentRepository.findAll(StudentSpecifications.filter(studentId, clazz, search), pageable),
+                page -> StudentQueryCache.estimateBytes(page.getContent()));
+        pipelineMetrics.record(PipelineMetrics.Stage.QUERY, "page", start, students.getNumberOfElements(), 0, 0);
+        return students;
+    }
+    
+    /**
+     * Keyset page of the students matching the filters, served from the query cache when possible
+     * @param cursor Position to continue from, or null for the first page
+     * @param includeCount Also count all matching students into totalElements
+     */
+    public CursorPage<Student> getStudents(Long studentId, String clazz, String search, StudentSortField sortField,
+                                           boolean ascending, StudentCursor cursor, int size, boolean includeCount) {
+        long start = System.nanoTime();
+        String key = StudentQueryCache.key("cursor", studentId, clazz, search, sortField, ascending,
+                cursor != null ? cursor.encode() : null, size, includeCount);
+        CursorPage<Student> page = studentQueryCache.get(key, () -> {
+            Specification<Student> spec = StudentSpecifications.filter(studentId, clazz, search);
+            CursorPage<Student> students = studentRepository.findPage(spec, sortField, ascending, cursor, size);
+            if (includeCount) {
+                students.setTotalElements(studentRepository.count(spec));
+            }
+            return students;
+        }, students -> StudentQueryCache.estimateBytes(students.getContent()));
+        pipelineMetrics.record(PipelineMetrics.Stage.QUERY, "cursor", start, page.getNumberOfElements(), 0, 0);
+        return page;
+    }
+    
+    /**
+     * Exports the students matching the filters to a file, streaming them from a database cursor
+     * @return The written file
+     */
+    @Transactional(readOnly = true)
+    public ExportArtifact exportStudents(ExportFormat format, Long studentId, String clazz, String search) throws IOException {
+        log.info("Exporting students to {} - studentId: {}, clazz: {}, search: {}", format, studentId, clazz, search);
+        String variant = format.getExtension();
+        long start = System.nanoTime();
+        ExportArtifact artifact;
+        try {
+            artifact = exportService.export(format, callback -> studentExportRepository.forEach(studentId, clazz, search, callback));
+        } catch (IOException | RuntimeException e) {
+            pipelineMetrics.failed(PipelineMetrics.Stage.EXPORT, variant, start);
+            throw e;
+        }
+        pipelineMetrics.record(PipelineMetrics.Stage.EXPORT, variant, start, artifact.getRecordCount(), 0,
+                Files.size(Paths.get(artifact.getFilePath())));
+        return artifact;
+    }
+    
+    /**
+     * Writes the students matching the filters to a stream as they come off the database cursor
+     * @param out Stream receiving the export, left open
+     * @return Number of students written
+     */
+    @Transactional(readOnly = true)
+    public long streamStudents(ExportFormat format, Long studentId, String clazz, String search, OutputStream out) throws IOException {
+        log.info("Streaming students as {} - studentId: {}, clazz: {}, search: {}", format, studentId, clazz, search);
+        String variant = format.getExtension();
+        long start = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        long recordCount;
+        try {
+            recordCount = exportService.write(format, callback -> studentExportRepository.forEach(studentId, clazz, search, callback), counted);
+        } catch (IOException | RuntimeException e) {
+            pipelineMetrics.failed(PipelineMetrics.Stage.EXPORT, variant, start);
+            throw e;
         }
+        pipelineMetrics.record(PipelineMetrics.Stage.EXPORT, variant, start, recordCount, 0, counted.getCount());
+        return recordCount;
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.XlsxSheetReader;
+import com.opencsv.CSVWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Loads an Excel workbook straight into the students table.
+ *
+ * Rows are read with the SAX sheet reader, put through the same score and date rules as
+ * the Excel to CSV to database route, and written into a PostgreSQL COPY stream without
+ * producing the intermediate CSV. The upload is opened from a temp file rather than from
+ * its stream, which would unpack the whole workbook into heap.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExcelIngestService {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final ExcelToCsvService excelToCsvService;
+    private final CsvToDbService csvToDbService;
+    private final StudentDataVersion dataVersion;
+    private final PipelineMetrics pipelineMetrics;
+
+    /**
+     * Imports the first sheet of an uploaded workbook into the database
+     * @param file MultipartFile containing the Excel data
+     * @return Number of rows imported
+     * @throws Exception if the workbook cannot be read or the import fails
+     */
+    public long ingestExcel(MultipartFile file) throws Exception {
+        log.info("Ingesting Excel file into database: {}", file.getOriginalFilename());
+
+        long start = System.nanoTime();
+        Path tempFile = Files.createTempFile("ingest_excel_", ".xlsx");
+        try {
+            file.transferTo(tempFile);
+            pipelineMetrics.tempFile(PipelineMetrics.Stage.IMPORT, "workbook", tempFile);
+            long imported = ingest(tempFile);
+            pipelineMetrics.record(PipelineMetrics.Stage.IMPORT, "excel", start, imported, file.getSize(), 0);
+            return imported;
+        } catch (Exception e) {
+            pipelineMetrics.failed(PipelineMetrics.Stage.IMPORT, "excel", start);
+            throw e;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private long ingest(Path workbook) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(workbook.toFile(), PackageAccess.READ);
+             XlsxSheetReader reader = excelToCsvService.openReader(pkg)) {
+
+            ImportStatsCollector stats = new ImportStatsCollector();
+            long imported = csvToDbService.copyIn(out -> {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                CSVWriter csvWriter = new CSVWriter(writer);
+                csvWriter.writeNext(CsvToDbService.CSV_HEADER, false);
+
+                IngestRowHandler handler = new IngestRowHandler(csvWriter, stats);
+                reader.readSheet(0, handler);
+
+                // Flush only: closing would end the COPY before its row count is read
+                csvWriter.flush();
+                if (handler.skippedRows > 0) {
+                    log.warn("Skipped {} rows with insufficient columns", handler.skippedRows);
+                    pipelineMetrics.skipped(PipelineMetrics.Stage.IMPORT, "excel", handler.skippedRows);
+                }
+            }, stats);
+            dataVersion.changed("excel-ingest");
+            return imported;
+        }
+    }
+
+    /**
+     * Turns worksheet rows into import rows, applying the score and date transforms
+     */
+    private final class IngestRowHandler implements XlsxSheetReader.RowHandler {
+
+        private final CSVWriter csvWriter;
+        private final ImportStatsCollector stats;
+        private final String[] cells = new String[6];
+        private int lastColumn;
+        private long skippedRows;
+
+        IngestRowHandler(CSVWriter csvWriter, ImportStatsCollector stats) {
+            this.csvWriter = csvWriter;
+            this.stats = stats;
+        }
+
+        @Override
+        public void startRow(int rowIndex) {
+            Arrays.fill(cells, "");
+            lastColumn = -1;
+        }
+
+        @Override
+        public void numericCell(int column, double value, boolean date) {
+            if (column >= cells.length) {
+                return;
+            }
+            if (date) {
+                cells[column] = DateUtil.getLocalDateTime(value).toLocalDate().format(DATE_FORMATTER);
+            } else if (value == (int) value) {
+                cells[column] = String.valueOf((int) value);
+            } else {
+                cells[column] = String.valueOf(value);
+            }
+            lastColumn = Math.max(lastColumn, column);
+        }
+
+        @Override
+        public void stringCell(int column, String value) {
+            if (column >= cells.length) {
+                return;
+            }
+            cells[column] = value;
+            lastColumn = Math.max(lastColumn, column);
+        }
+
+        @Override
+        public void endRow(int rowIndex) {
+            // Skip header row
+            if (rowIndex == 0) {
+                return;
+            }
+            if (lastColumn < cells.length - 1) {
+                skippedRows++;
+                return;
+            }
+
+            cells[3] = excelToCsvService.formatDateToIso(cells[3]);
+            // Excel score -> CSV score (+10) -> DB score (-5)
+            int score = csvToDbService.dbScore(excelToCsvService.calculateNewScore(cells[5]));
+            cells[5] = String.valueOf(score);
+            stats.add(cells[4], score);
+            csvWriter.writeNext(cells, false);
+        }
+    }
+}
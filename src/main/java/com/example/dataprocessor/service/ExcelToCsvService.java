@@ -1,19 +1,18 @@
 package com.example.dataprocessor.service;
 
-import com.monitorjbl.xlsx.StreamingReader;
-import org.apache.poi.ss.usermodel.Workbook;
-import com.opencsv.CSVWriter;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
+import com.example.dataprocessor.io.CsvRowWriter;
+import com.example.dataprocessor.io.XlsxSheetReader;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -26,10 +25,18 @@ public class ExcelToCsvService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelToCsvService.class);
     
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    
+    static final String[] CSV_HEADER = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
     
     @Value("${app.data.path:/tmp/data}")
     private String baseDataPath;
+    
+    @Value("${app.xlsx.shared-strings-spill-bytes:67108864}")
+    private long sharedStringsSpillBytes;
+    
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
 
     /**
      * Converts an uploaded Excel file to CSV format with modified scores
@@ -39,6 +46,7 @@ public class ExcelToCsvService {
      */
     public Path convertExcelToCsv(MultipartFile file) throws Exception {
         logger.info("Converting Excel file to CSV: {}", file.getOriginalFilename());
+        long start = System.nanoTime();
         
         // Ensure the data directory exists
         Path dataDir = Paths.get(baseDataPath);
@@ -50,44 +58,25 @@ public class ExcelToCsvService {
             // Save uploaded file to temp location
             file.transferTo(tempFile.toFile());
             logger.debug("Saved uploaded file to temp location: {}", tempFile);
+            pipelineMetrics.tempFile(PipelineMetrics.Stage.CONVERT, "workbook", tempFile);
             
             // Generate output CSV filename
             String csvFilename = String.format("converted_%d.csv", System.currentTimeMillis());
             Path csvPath = dataDir.resolve(csvFilename);
             
             // Process Excel file and convert to CSV
-            try (InputStream inputStream = Files.newInputStream(tempFile);
-                 CSVWriter csvWriter = new CSVWriter(new FileWriter(csvPath.toFile()))) {
-                
-                Workbook workbook = StreamingReader.builder()
-                         .rowCacheSize(100)
-                         .bufferSize(4096)
-                         .open(inputStream);
-                
-                // Write CSV header
-                csvWriter.writeNext(new String[]{"studentId", "firstName", "lastName", "DOB", "class", "score"});
-                
-                boolean isFirstRow = true;
-                for (Row row : workbook.getSheetAt(0)) {
-                    // Skip header row
-                    if (isFirstRow) {
-                        isFirstRow = false;
-                        continue;
-                    }
-                    
-                    // Extract data from Excel row
-                    String[] csvRow = extractRowData(row);
-                    if (csvRow != null) {
-                        csvWriter.writeNext(csvRow);
-                    }
-                }
-                
-                csvWriter.flush();
-                workbook.close();
-                logger.info("Successfully converted Excel to CSV: {}", csvPath.toAbsolutePath());
-                return csvPath.toAbsolutePath();
+            long rows;
+            try (OPCPackage pkg = OPCPackage.open(tempFile.toFile(), PackageAccess.READ);
+                 OutputStream csvOut = Files.newOutputStream(csvPath)) {
+                rows = convert(pkg, csvOut);
             }
+            logger.info("Successfully converted Excel to CSV: {} ({} rows)", csvPath.toAbsolutePath(), rows);
+            pipelineMetrics.record(PipelineMetrics.Stage.CONVERT, "single", start, rows, file.getSize(), Files.size(csvPath));
+            return csvPath.toAbsolutePath();
             
+        } catch (Exception e) {
+            pipelineMetrics.failed(PipelineMetrics.Stage.CONVERT, "single", start);
+            throw e;
         } finally {
             // Clean up temporary file
             try {
@@ -100,82 +89,49 @@ public class ExcelToCsvService {
     }
     
     /**
-     * Extracts data from an Excel row and converts it to CSV format
-     * @param row Excel row to process
-     * @return String array representing CSV row data, or null if row is invalid
+     * Converts the first sheet of a workbook to CSV with modified scores
+     * @param pkg Opened workbook package
+     * @param csv Receives the CSV, header first; left open
+     * @return Number of rows written, header excluded
      */
-    private String[] extractRowData(Row row) {
-        try {
-            // Ensure we have at least 6 columns
-            if (row.getLastCellNum() < 6) {
-                logger.warn("Row {} has insufficient columns, skipping", row.getRowNum());
-                return null;
-            }
-            
-            String[] csvRow = new String[6];
-            
-            // studentId (column 0)
-            csvRow[0] = getCellValueAsString(row.getCell(0));
-            
-            // firstName (column 1)
-            csvRow[1] = getCellValueAsString(row.getCell(1));
-            
-            // lastName (column 2)
-            csvRow[2] = getCellValueAsString(row.getCell(2));
-            
-            // DOB (column 3) - ensure ISO format
-            csvRow[3] = formatDateToIso(getCellValueAsString(row.getCell(3)));
-            
-            // class (column 4)
-            csvRow[4] = getCellValueAsString(row.getCell(4));
-            
-            // score (column 5) - add 10 to original score
-            String originalScore = getCellValueAsString(row.getCell(5));
-            csvRow[5] = calculateNewScore(originalScore);
-            
-            return csvRow;
-            
-        } catch (Exception e) {
-            logger.warn("Error processing row {}, skipping: {}", row.getRowNum(), e.getMessage());
-            return null;
+    long convert(OPCPackage pkg, OutputStream csv) throws IOException {
+        try (XlsxSheetReader reader = openReader(pkg)) {
+            return convert(reader, 0, csv, true);
         }
     }
     
     /**
-     * Gets cell value as string, handling different cell types
-     * @param cell Excel cell
-     * @return String representation of cell value
+     * Opens a sheet reader whose shared-strings table spills to memory-mapped temp files
+     * beyond {@code app.xlsx.shared-strings-spill-bytes}; the caller closes it
      */
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return "";
-        }
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                // Handle dates and numbers
-                if (org.apache.poi.ss.usermodel.DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toInstant()
-                            .atZone(java.time.ZoneId.systemDefault())
-                            .toLocalDate()
-                            .format(DATE_FORMATTER);
-                } else {
-                    // Format as integer if it's a whole number, otherwise as double
-                    double numericValue = cell.getNumericCellValue();
-                    if (numericValue == (int) numericValue) {
-                        return String.valueOf((int) numericValue);
-                    } else {
-                        return String.valueOf(numericValue);
-                    }
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+    XlsxSheetReader openReader(OPCPackage pkg) throws IOException {
+        return new XlsxSheetReader(pkg, sharedStringsSpillBytes);
+    }
+    
+    /**
+     * Converts one sheet to CSV with modified scores; the sheet's first row is taken as
+     * its column titles. Sheets of one shared reader may be converted concurrently, as
+     * each call has its own decoder and CSV writer.
+     * @param reader Reader over the workbook
+     * @param sheetIndex 0-based sheet position
+     * @param csv Receives the CSV; left open
+     * @param header Whether to start the CSV with the header row
+     * @return Number of rows written, header excluded
+     */
+    long convert(XlsxSheetReader reader, int sheetIndex, OutputStream csv, boolean header) throws IOException {
+        try (CsvRowWriter csvWriter = new CsvRowWriter(csv, 64 * 1024)) {
+            if (header) {
+                // Write CSV header
+                csvWriter.writeRow(CSV_HEADER);
+            }
+            
+            StudentRowDecoder decoder = new StudentRowDecoder(this, csvWriter);
+            reader.readSheet(sheetIndex, decoder);
+            JobContext.addRows(decoder.getRowCount() % JobContext.REPORT_INTERVAL);
+            if (decoder.getSkippedRows() > 0) {
+                logger.warn("Skipped {} rows with insufficient columns", decoder.getSkippedRows());
+            }
+            return decoder.getRowCount();
         }
     }
     
@@ -184,7 +140,7 @@ public class ExcelToCsvService {
      * @param dateString Input date string
      * @return ISO formatted date string
      */
-    private String formatDateToIso(String dateString) {
+    String formatDateToIso(String dateString) {
         if (dateString == null || dateString.trim().isEmpty()) {
             return "";
         }
@@ -210,7 +166,7 @@ public class ExcelToCsvService {
      * @param originalScore Original score as string
      * @return New score as string
      */
-    private String calculateNewScore(String originalScore) {
+    String calculateNewScore(String originalScore) {
         if (originalScore == null || originalScore.trim().isEmpty()) {
             return "0";
         }
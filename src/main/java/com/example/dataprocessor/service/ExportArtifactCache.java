@@ -0,0 +1,250 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.CacheStats;
+import com.example.dataprocessor.model.ExportArtifact;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps export files so that a repeated export with the same format and filters is answered
+ * with the file already on disk.
+ *
+ * Entries are keyed by format, the normalized filters and the {@link StudentDataVersion}
+ * the file was written at, so an import makes every earlier entry unreachable; those are
+ * dropped as soon as the change event arrives. The least recently used files are deleted
+ * once their total size exceeds {@code app.export.cache.max-bytes}. Concurrent requests for
+ * the same key wait for a single export instead of each writing their own.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportArtifactCache implements MeterBinder {
+
+    /**
+     * Writes the export on a cache miss
+     */
+    @FunctionalInterface
+    public interface ExportLoader {
+        ExportArtifact export() throws IOException;
+    }
+
+    private final StudentDataVersion dataVersion;
+
+    @Value("${app.export.cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    /** Access-ordered, so iteration starts at the least recently used entry; guarded by this */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<String, CompletableFuture<ExportArtifact>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Returns the cached export for the format and filters, writing it with the loader if
+     * there is none for the current data version
+     * @return The export, flagged as cached when no new file was written
+     */
+    public ExportArtifact getOrExport(ExportFormat format, Long studentId, String clazz, String search,
+                                      ExportLoader loader) throws IOException {
+        long version = dataVersion.current();
+        String key = key(format, studentId, clazz, search, version);
+
+        ExportArtifact cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<ExportArtifact> created = new CompletableFuture<>();
+        CompletableFuture<ExportArtifact> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            // Someone else is writing this export already; their file serves us too
+            hits.incrementAndGet();
+            return copy(await(running), true);
+        }
+
+        misses.incrementAndGet();
+        try {
+            ExportArtifact artifact = loader.export();
+            // An import that committed while we were reading may or may not be in the file
+            if (dataVersion.current() == version) {
+                store(key, version, artifact);
+            }
+            created.complete(artifact);
+            return artifact;
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * Publishes {@link #getStats()} as cache.* meters tagged cache=export-artifact
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        PipelineMetrics.bindCache(registry, "export-artifact", this, ExportArtifactCache::getStats);
+    }
+
+    public CacheStats getStats() {
+        synchronized (this) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), totalBytes);
+        }
+    }
+
+    /**
+     * Drops the entries written before the change
+     */
+    @EventListener
+    public void onDataChanged(StudentDataChangedEvent event) {
+        List<Entry> stale = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.version < event.getVersion()) {
+                    iterator.remove();
+                    totalBytes -= entry.size;
+                    stale.add(entry);
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            log.info("Data version {} ({}): dropping {} cached exports", event.getVersion(), event.getSource(), stale.size());
+            delete(stale);
+        }
+    }
+
+    private ExportArtifact lookup(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!Files.isRegularFile(Paths.get(entry.artifact.getFilePath()))) {
+                // Deleted behind our back; treat as a miss and write it again
+                entries.remove(key);
+                totalBytes -= entry.size;
+                return null;
+            }
+        }
+        return copy(entry.artifact, true);
+    }
+
+    private void store(String key, long version, ExportArtifact artifact) throws IOException {
+        long size = Files.size(Paths.get(artifact.getFilePath()));
+        if (size > maxBytes) {
+            log.debug("Export {} ({} bytes) exceeds the cache size, not cached", artifact.getFilePath(), size);
+            return;
+        }
+
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(copy(artifact, false), version, size));
+            totalBytes += size;
+            if (previous != null) {
+                totalBytes -= previous.size;
+                evicted.add(previous);
+            }
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                totalBytes -= eldest.size;
+                evicted.add(eldest);
+            }
+        }
+        evictions.addAndGet(evicted.size());
+        delete(evicted);
+    }
+
+    private static void delete(List<Entry> dropped) {
+        for (Entry entry : dropped) {
+            try {
+                // Downloads hold cached exports open from before their headers are sent
+                // (DataController#downloadFile), so one in progress still completes
+                Files.deleteIfExists(Paths.get(entry.artifact.getFilePath()));
+            } catch (IOException e) {
+                log.warn("Could not delete cached export {}", entry.artifact.getFilePath(), e);
+            }
+        }
+    }
+
+    private static ExportArtifact await(CompletableFuture<ExportArtifact> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for export");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new UncheckedIOException(new IOException(cause));
+        }
+    }
+
+    private static ExportArtifact copy(ExportArtifact artifact, boolean cached) {
+        ExportArtifact copy = new ExportArtifact(artifact.getFormat(), artifact.getFilePath(), artifact.getRecordCount());
+        copy.setCached(cached);
+        return copy;
+    }
+
+    /**
+     * Normalizes the filters the way {@link com.example.dataprocessor.repository.StudentExportRepository}
+     * applies them: blank means no filter, the class matches exactly and the search is
+     * trimmed and case-insensitive
+     */
+    static String key(ExportFormat format, Long studentId, String clazz, String search, long version) {
+        return format.name()
+                + '|' + (studentId != null ? studentId : "")
+                + '|' + (clazz != null && !clazz.trim().isEmpty() ? clazz : "")
+                + '|' + (search != null ? search.trim().toLowerCase() : "")
+                + '|' + version;
+    }
+
+    private static final class Entry {
+
+        private final ExportArtifact artifact;
+        private final long version;
+        private final long size;
+
+        Entry(ExportArtifact artifact, long version, long size) {
+            this.artifact = artifact;
+            this.version = version;
+            this.size = size;
+        }
+    }
+}
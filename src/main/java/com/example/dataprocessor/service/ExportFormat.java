@@ -0,0 +1,40 @@
+package com.example.dataprocessor.service;
+
+/**
+ * File formats students can be exported to
+ */
+public enum ExportFormat {
+
+    CSV("csv", "text/csv"),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    PDF("pdf", "application/pdf");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Parses the format request parameter
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static ExportFormat fromParameter(String parameter) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(parameter)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + parameter);
+    }
+}
@@ -1,165 +1,143 @@
 package com.example.dataprocessor.service;
 
-import com.example.dataprocessor.model.Student;
+import com.example.dataprocessor.model.ExportArtifact;
 import com.opencsv.CSVWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.FileOutputStream;
-import java.io.FileWriter;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ExportService {
     
+    /** Name prefix of export files, which {@link ExportArtifactCache} may delete at any time */
+    static final String FILE_PREFIX = "students_export_";
+    
     @Value("${app.data.path}")
     private String dataPath;
     
-    public String exportToCsv(List<Student> students) throws IOException {
+    @Value("${app.export.pdf-parallelism:0}")
+    private int pdfParallelism;
+    
+    /** Renders PDF page batches for all exports */
+    private ExecutorService pdfExecutor;
+    
+    /**
+     * Sets the PDF render thread count where Spring does not inject it; call before {@link #init()}
+     */
+    void setPdfParallelism(int pdfParallelism) {
+        this.pdfParallelism = pdfParallelism;
+    }
+    
+    @PostConstruct
+    void init() {
+        if (pdfParallelism <= 0) {
+            pdfParallelism = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        pdfExecutor = Executors.newFixedThreadPool(pdfParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-render-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        pdfExecutor.shutdownNow();
+    }
+    
+    /**
+     * Writes the students of a source to an export file in the data directory
+     * @param format Export format
+     * @param source Students to export, read once
+     * @return The written file
+     */
+    public ExportArtifact export(ExportFormat format, StudentSource source) throws IOException {
         Path dataDir = Paths.get(dataPath);
         if (!Files.exists(dataDir)) {
             Files.createDirectories(dataDir);
         }
         
-        String fileName = "students_export_" + System.currentTimeMillis() + ".csv";
+        String fileName = FILE_PREFIX + System.currentTimeMillis() + "." + format.getExtension();
         Path filePath = dataDir.resolve(fileName);
         
-        try (CSVWriter writer = new CSVWriter(new FileWriter(filePath.toFile()))) {
-            // Write header
-            writer.writeNext(new String[]{"Student ID", "First Name", "Last Name", "Date of Birth", "Class", "Score"});
-            
-            // Write data
-            for (Student student : students) {
-                writer.writeNext(new String[]{
-                    student.getStudentId().toString(),
-                    student.getFirstName(),
-                    student.getLastName(),
-                    student.getDob() != null ? student.getDob().toString() : "",
-                    student.getClazz(),
-                    student.getScore() != null ? student.getScore().toString() : ""
-                });
-            }
+        long recordCount;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(filePath))) {
+            recordCount = write(format, source, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(filePath);
+            throw e;
         }
         
-        return filePath.toString();
+        return new ExportArtifact(format.getExtension(), filePath.toString(), recordCount);
     }
     
-    public String exportToExcel(List<Student> students) throws IOException {
-        Path dataDir = Paths.get(dataPath);
-        if (!Files.exists(dataDir)) {
-            Files.createDirectories(dataDir);
+    /**
+     * Writes the students of a source to a stream, as they are read
+     * @param format Export format
+     * @param source Students to export, read once
+     * @param out Stream receiving the export, left open
+     * @return Number of students written
+     */
+    public long write(ExportFormat format, StudentSource source, OutputStream out) throws IOException {
+        switch (format) {
+            case CSV:
+                return writeCsv(source, out);
+            case XLSX:
+                return writeExcel(source, out);
+            default:
+                return writePdf(source, out);
         }
+    }
+    
+    private long writeCsv(StudentSource source, OutputStream out) throws IOException {
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
         
-        String fileName = "students_export_" + System.currentTimeMillis() + ".xlsx";
-        Path filePath = dataDir.resolve(fileName);
+        // Write header
+        writer.writeNext(new String[]{"Student ID", "First Name", "Last Name", "Date of Birth", "Class", "Score"});
         
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Students");
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("Student ID");
-            headerRow.createCell(1).setCellValue("First Name");
-            headerRow.createCell(2).setCellValue("Last Name");
-            headerRow.createCell(3).setCellValue("Date of Birth");
-            headerRow.createCell(4).setCellValue("Class");
-            headerRow.createCell(5).setCellValue("Score");
-            
-            // Write data
-            int rowNum = 1;
-            for (Student student : students) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(student.getStudentId());
-                row.createCell(1).setCellValue(student.getFirstName());
-                row.createCell(2).setCellValue(student.getLastName());
-                row.createCell(3).setCellValue(student.getDob() != null ? student.getDob().toString() : "");
-                row.createCell(4).setCellValue(student.getClazz());
-                row.createCell(5).setCellValue(student.getScore() != null ? student.getScore() : 0);
-            }
-            
-            try (FileOutputStream fileOut = new FileOutputStream(filePath.toFile())) {
-                workbook.write(fileOut);
-            }
-        }
+        // Write data
+        long recordCount = source.forEach(student -> writer.writeNext(new String[]{
+            student.getStudentId().toString(),
+            student.getFirstName(),
+            student.getLastName(),
+            student.getDob() != null ? student.getDob().toString() : "",
+            student.getClazz(),
+            student.getScore() != null ? student.getScore().toString() : ""
+        }));
+        
+        // Flush only: the caller owns the stream
+        writer.flush();
         
-        return filePath.toString();
+        return recordCount;
     }
     
-    public String exportToPdf(List<Student> students) throws IOException {
-        Path dataDir = Paths.get(dataPath);
-        if (!Files.exists(dataDir)) {
-            Files.createDirectories(dataDir);
+    private long writeExcel(StudentSource source, OutputStream out) throws IOException {
+        try (StudentXlsxWriter writer = new StudentXlsxWriter(out)) {
+            return source.forEach(writer::write);
         }
-        
-        String fileName = "students_export_" + System.currentTimeMillis() + ".pdf";
-        Path filePath = dataDir.resolve(fileName);
-        
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
-            
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            try {
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-                contentStream.newLineAtOffset(50, 750);
-                contentStream.showText("Student Data Export");
-                contentStream.endText();
-                
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA, 10);
-                contentStream.newLineAtOffset(50, 720);
-                contentStream.showText("Student ID | First Name | Last Name | Date of Birth | Class | Score");
-                contentStream.endText();
-                
-                float yPosition = 700;
-                for (Student student : students) {
-                    if (yPosition < 50) {
-                        contentStream.close();
-                        PDPage newPage = new PDPage();
-                        document.addPage(newPage);
-                        contentStream = new PDPageContentStream(document, newPage);
-                        yPosition = 750;
-                    }
-                    
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA, 8);
-                    contentStream.newLineAtOffset(50, yPosition);
-                    contentStream.showText(String.format("%d | %s | %s | %s | %s | %d",
-                            student.getStudentId(),
-                            student.getFirstName(),
-                            student.getLastName(),
-                            student.getDob() != null ? student.getDob().toString() : "",
-                            student.getClazz(),
-                            student.getScore() != null ? student.getScore() : 0));
-                    contentStream.endText();
-                    
-                    yPosition -= 15;
-                }
-            } finally {
-                if (contentStream != null) {
-                    contentStream.close();
-                }
-            }
-            
-            document.save(filePath.toFile());
+    }
+    
+    private long writePdf(StudentSource source, OutputStream out) throws IOException {
+        try (StudentPdfRenderer renderer = new StudentPdfRenderer(out, pdfExecutor, pdfParallelism)) {
+            return source.forEach(renderer::write);
         }
-        
-        return filePath.toString();
     }
 }
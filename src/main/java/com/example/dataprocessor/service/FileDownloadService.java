@@ -0,0 +1,97 @@
+package com.example.dataprocessor.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * Locates generated artifacts in the data directory and copies byte ranges of them to a
+ * response without staging the file on the heap.
+ */
+@Service
+@Slf4j
+public class FileDownloadService {
+
+    @Value("${app.data.path}")
+    private String dataPath;
+
+    /**
+     * Resolves a file name inside the data directory
+     * @param fileName Bare file name as used in download links
+     * @return The file, or empty if it does not exist or the name points outside the data directory
+     */
+    public Optional<Path> resolve(String fileName) {
+        Path dataDir = Paths.get(dataPath).toAbsolutePath().normalize();
+        Path file = dataDir.resolve(fileName).normalize();
+        if (!dataDir.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    public BasicFileAttributes attributes(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+
+    /**
+     * Whether the file is an export the {@link ExportArtifactCache} may delete while it is
+     * being downloaded
+     */
+    public static boolean isEvictable(String fileName) {
+        return fileName.startsWith(ExportService.FILE_PREFIX);
+    }
+
+    public FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Copies {@code count} bytes from {@code start} through the file channel, letting the
+     * JDK move the data without an intermediate copy on the heap
+     */
+    public void transfer(Path file, long start, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = open(file)) {
+            transfer(channel, start, count, out);
+        }
+    }
+
+    /**
+     * Copies {@code count} bytes from {@code start} of an open file; the channel is left open
+     */
+    public void transfer(FileChannel channel, long start, long count, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                // File shrank underneath us
+                throw new IOException("Unexpected end of file at byte " + position);
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    public static String contentType(String fileName) {
+        String name = fileName.toLowerCase();
+        for (ExportFormat format : ExportFormat.values()) {
+            if (name.endsWith("." + format.getExtension())) {
+                return format.getContentType();
+            }
+        }
+        return "application/octet-stream";
+    }
+}
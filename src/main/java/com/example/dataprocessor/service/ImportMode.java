@@ -0,0 +1,39 @@
+package com.example.dataprocessor.service;
+
+import java.util.Locale;
+
+/**
+ * How {@link CsvToDbService} moves an uploaded CSV into the students table
+ */
+public enum ImportMode {
+
+    /** Stage the upload and the score-adjusted copy in temp files, then COPY the result */
+    FILE,
+
+    /** Parse the upload once and rewrite scores on the fly into the COPY stream */
+    STREAMING,
+
+    /** Parse the upload once into typed values and stream them into a binary COPY */
+    BINARY,
+
+    /** Split the upload at row boundaries and COPY the parts concurrently into a staging table, then merge */
+    PARALLEL,
+
+    /** COPY into a temporary staging table, then insert new students and update changed ones */
+    UPSERT,
+
+    /** Replace all students: COPY into a shadow table, index and analyze it, then swap it in by rename */
+    RELOAD;
+
+    /**
+     * Parses a request parameter value, case-insensitively
+     * @throws IllegalArgumentException if the value names no mode
+     */
+    public static ImportMode fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown import mode: " + value, e);
+        }
+    }
+}
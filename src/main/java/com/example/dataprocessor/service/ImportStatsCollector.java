@@ -0,0 +1,107 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.MappedCsvReader;
+import com.example.dataprocessor.model.ClassScoreStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates the rows of one import pass by class as they are written to COPY. Collectors
+ * of parallel streams are merged before the aggregate is stored.
+ */
+final class ImportStatsCollector {
+
+    /** Distinct raw class fields remembered for {@link #add(MappedCsvReader, int, int)} */
+    private static final int MAX_RAW_CLASSES = 64;
+
+    /** Scores in [-128, 127] are counted in arrays and folded into the aggregates on read */
+    private static final int COUNTED_SCORE_OFFSET = 128;
+
+    private final Map<String, ClassScoreStats> classes = new HashMap<>();
+    private final List<RawClass> rawClasses = new ArrayList<>();
+
+    /**
+     * @param clazz Class column as imported; null or missing counts as no class
+     * @param dbScore Score as stored in the database
+     */
+    void add(String clazz, int dbScore) {
+        classes.computeIfAbsent(clazz != null ? clazz : "", key -> new ClassScoreStats()).add(dbScore, 1);
+    }
+
+    /**
+     * Adds the current row of a mapped CSV, finding its class by the field's bytes so that
+     * known classes are not decoded again. Usual scores are only counted here, which adds
+     * the same to the aggregate as one {@link ClassScoreStats#add} per row without boxing.
+     * @param row Reader positioned on the row
+     * @param field Index of the class field
+     * @param dbScore Score as stored in the database
+     */
+    void add(MappedCsvReader row, int field, int dbScore) {
+        for (RawClass raw : rawClasses) {
+            if (row.fieldEquals(field, raw.bytes, raw.quoted)) {
+                raw.add(dbScore);
+                return;
+            }
+        }
+        ClassScoreStats stats = classes.computeIfAbsent(row.getString(field), key -> new ClassScoreStats());
+        if (rawClasses.size() < MAX_RAW_CLASSES) {
+            RawClass raw = new RawClass(row.getBytes(field), row.isQuoted(field), stats);
+            rawClasses.add(raw);
+            raw.add(dbScore);
+        } else {
+            stats.add(dbScore, 1);
+        }
+    }
+
+    void merge(ImportStatsCollector other) {
+        other.flushCounts();
+        other.classes.forEach((clazz, stats) ->
+                classes.computeIfAbsent(clazz, key -> new ClassScoreStats()).merge(stats));
+    }
+
+    Map<String, ClassScoreStats> getClasses() {
+        flushCounts();
+        return classes;
+    }
+
+    private void flushCounts() {
+        for (RawClass raw : rawClasses) {
+            raw.flush();
+        }
+    }
+
+    private static final class RawClass {
+
+        private final byte[] bytes;
+        private final boolean quoted;
+        private final ClassScoreStats stats;
+        private final long[] counts = new long[2 * COUNTED_SCORE_OFFSET];
+
+        RawClass(byte[] bytes, boolean quoted, ClassScoreStats stats) {
+            this.bytes = bytes;
+            this.quoted = quoted;
+            this.stats = stats;
+        }
+
+        void add(int dbScore) {
+            int index = dbScore + COUNTED_SCORE_OFFSET;
+            if (index >= 0 && index < counts.length) {
+                counts[index]++;
+            } else {
+                stats.add(dbScore, 1);
+            }
+        }
+
+        void flush() {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    stats.add(i - COUNTED_SCORE_OFFSET, counts[i]);
+                    counts[i] = 0;
+                }
+            }
+        }
+    }
+}
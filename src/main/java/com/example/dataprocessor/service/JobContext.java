@@ -0,0 +1,77 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.Job;
+import com.example.dataprocessor.model.JobStatus;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Binds the running {@link Job} to its worker thread, so the pipeline services can report
+ * progress and notice cancellation without knowing whether they run inside a job.
+ * Outside a job every method is a no-op.
+ */
+public final class JobContext {
+
+    /** Rows a loop should process between two progress reports */
+    public static final int REPORT_INTERVAL = 8192;
+
+    private static final ThreadLocal<Job> CURRENT = new ThreadLocal<>();
+
+    private JobContext() {
+    }
+
+    static void bind(Job job) {
+        CURRENT.set(job);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Adds processed rows to the current job
+     * @throws CancellationException if the job has been cancelled
+     */
+    public static void addRows(long rows) {
+        Job job = CURRENT.get();
+        if (job != null) {
+            job.addRows(rows);
+            checkCancelled(job);
+        }
+    }
+
+    /**
+     * @throws CancellationException if the current job has been cancelled
+     */
+    public static void checkCancelled() {
+        Job job = CURRENT.get();
+        if (job != null) {
+            checkCancelled(job);
+        }
+    }
+
+    /**
+     * Wraps a task so it runs bound to the caller's job, for work fanned out to other pools
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Job job = CURRENT.get();
+        if (job == null) {
+            return task;
+        }
+        return () -> {
+            bind(job);
+            try {
+                return task.call();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    private static void checkCancelled(Job job) {
+        if (job.getStatus() == JobStatus.CANCELLING || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Job " + job.getId() + " was cancelled");
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.BatchConversionResult;
+import com.example.dataprocessor.model.ImportResult;
+import com.example.dataprocessor.model.Job;
+import com.example.dataprocessor.model.JobType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs generate, convert and import work in the background.
+ *
+ * Each job type has its own fixed-size executor with a bounded queue, so a burst of
+ * uploads cannot take over request threads or starve the other kinds of work. Uploads
+ * are spooled to temp files before the request returns, and jobs run the same
+ * {@link DataProcessingService} methods as the synchronous endpoints.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobService {
+
+    /**
+     * Work done by a job; may record an artifact or result on the job
+     */
+    @FunctionalInterface
+    interface JobTask {
+        void run(Job job) throws Exception;
+    }
+
+    private final DataProcessingService dataProcessingService;
+
+    @Value("${app.jobs.generate-threads:1}")
+    private int generateThreads;
+
+    @Value("${app.jobs.convert-threads:2}")
+    private int convertThreads;
+
+    @Value("${app.jobs.import-threads:2}")
+    private int importThreads;
+
+    @Value("${app.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${app.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<JobType, ThreadPoolExecutor> executors = new EnumMap<>(JobType.class);
+
+    @PostConstruct
+    void init() {
+        executors.put(JobType.GENERATE, newExecutor(JobType.GENERATE, generateThreads));
+        executors.put(JobType.CONVERT, newExecutor(JobType.CONVERT, convertThreads));
+        executors.put(JobType.IMPORT, newExecutor(JobType.IMPORT, importThreads));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues generation of an Excel file
+     * @throws RejectedExecutionException if the generate queue is full
+     */
+    public Job submitGenerate(int count, Long seed) {
+        return submit(JobType.GENERATE, "Generate " + count + " students", job -> {
+            String filePath = dataProcessingService.generateExcelFile(count, seed);
+            job.setArtifact(filePath);
+        }, Collections.emptyList());
+    }
+
+    /**
+     * Queues conversion of an uploaded Excel file to CSV
+     * @throws RejectedExecutionException if the convert queue is full
+     */
+    public Job submitConvert(MultipartFile file) throws IOException {
+        SpooledMultipartFile upload = SpooledMultipartFile.spool(file);
+        return submit(JobType.CONVERT, "Convert " + file.getOriginalFilename(), job -> {
+            String csvPath = dataProcessingService.convertExcelToCsv(upload);
+            job.setArtifact(csvPath);
+        }, Collections.singletonList(upload));
+    }
+
+    /**
+     * Queues conversion of every sheet of several uploaded workbooks or zip archives
+     * @throws RejectedExecutionException if the convert queue is full
+     */
+    public Job submitBatchConvert(List<MultipartFile> files, BatchOutput output) throws IOException {
+        List<SpooledMultipartFile> uploads = new ArrayList<>(files.size());
+        try {
+            for (MultipartFile file : files) {
+                uploads.add(SpooledMultipartFile.spool(file));
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteUploads(uploads);
+            throw e;
+        }
+        return submit(JobType.CONVERT, "Convert " + files.size() + " uploads (" + output.name().toLowerCase() + ")", job -> {
+            BatchConversionResult result = dataProcessingService.convertExcelBatch(new ArrayList<>(uploads), output);
+            job.setResult(result);
+        }, uploads);
+    }
+
+    /**
+     * Queues import of an uploaded CSV file
+     * @throws RejectedExecutionException if the import queue is full
+     */
+    public Job submitImport(MultipartFile file, ImportMode mode) throws IOException {
+        SpooledMultipartFile upload = SpooledMultipartFile.spool(file);
+        return submit(JobType.IMPORT, "Import " + file.getOriginalFilename() + " (" + mode.name().toLowerCase() + ")", job -> {
+            ImportResult result = dataProcessingService.importCsvToDatabase(upload, mode);
+            job.setResult(result);
+        }, Collections.singletonList(upload));
+    }
+
+    public Optional<Job> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * @return Known jobs, newest first
+     */
+    public List<Job> getJobs() {
+        purgeExpired();
+        List<Job> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(Job::getCreatedAt).reversed());
+        return result;
+    }
+
+    /**
+     * Cancels a queued job, or asks a running one to stop; see {@link Job#cancel()}
+     * @return The job, or empty if the id is unknown
+     */
+    public Optional<Job> cancel(String id) {
+        Job job = jobs.get(id);
+        if (job != null && job.cancel()) {
+            log.info("Cancel requested for job {}", id);
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private Job submit(JobType type, String description, JobTask task, List<SpooledMultipartFile> uploads) {
+        purgeExpired();
+        Job job = new Job(UUID.randomUUID().toString(), type, description);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executors.get(type).submit(() -> execute(job, task, uploads)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteUploads(uploads);
+            throw e;
+        }
+        log.info("Queued {} job {}: {}", type, job.getId(), description);
+        return job;
+    }
+
+    private void execute(Job job, JobTask task, List<SpooledMultipartFile> uploads) {
+        try {
+            if (!job.markRunning()) {
+                return;
+            }
+            JobContext.bind(job);
+            task.run(job);
+            // Also after a late cancel: the work is done and committed
+            job.markSucceeded();
+            log.info("Job {} finished: {} rows, {} rows/s", job.getId(), job.getRowsProcessed(), job.getRowsPerSecond());
+        } catch (Exception e) {
+            if (isCancellation(e)) {
+                job.markCancelled();
+                log.info("Job {} cancelled", job.getId());
+            } else {
+                log.error("Job {} failed", job.getId(), e);
+                job.markFailed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        } finally {
+            JobContext.unbind();
+            deleteUploads(uploads);
+        }
+    }
+
+    /**
+     * Whether a job stopped on a cancellation check or an interrupt, possibly wrapped by a
+     * pool it fanned out to
+     */
+    private static boolean isCancellation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof CancellationException || t instanceof InterruptedException
+                    || t instanceof InterruptedIOException || t instanceof ClosedByInterruptException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private void deleteUploads(List<SpooledMultipartFile> uploads) {
+        for (SpooledMultipartFile upload : uploads) {
+            try {
+                upload.delete();
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled upload", e);
+            }
+        }
+    }
+
+    private ThreadPoolExecutor newExecutor(JobType type, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        String prefix = type.name().toLowerCase() + "-job-";
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Micrometer meters of the data pipeline, exposed on /actuator/prometheus.
+ *
+ * Every stage run is recorded once when it ends, with totals the stage already keeps, so
+ * nothing is recorded or allocated per row. Meters are tagged with the stage and a variant:
+ * the import mode, export format or query kind. Rows per second come from the rate of the
+ * rows counter, or per run from the throughput summary.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineMetrics {
+
+    /**
+     * Pipeline stages, used as the "stage" tag
+     */
+    public enum Stage {
+        GENERATE, CONVERT, IMPORT, EXPORT, QUERY;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final MeterRegistry registry;
+
+    /**
+     * Records a completed stage run
+     * @param startNanos {@link System#nanoTime()} when the run started
+     * @param rows Rows produced or loaded by the run
+     * @param bytesRead Bytes of input, or 0 if the stage reads no file or upload
+     * @param bytesWritten Bytes of output, or 0 if the stage writes no file or stream
+     */
+    public void record(Stage stage, String variant, long startNanos, long rows, long bytesRead, long bytesWritten) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        timer(stage, variant, "success").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("pipeline.rows")
+                .description("Rows processed by completed stage runs")
+                .tags("stage", stage.tag(), "variant", variant)
+                .register(registry)
+                .increment(rows);
+        if (bytesRead > 0) {
+            bytes(stage, variant, "read").increment(bytesRead);
+        }
+        if (bytesWritten > 0) {
+            bytes(stage, variant, "written").increment(bytesWritten);
+        }
+        if (rows > 0 && elapsedNanos > 0) {
+            DistributionSummary.builder("pipeline.throughput")
+                    .description("Rows per second of each stage run")
+                    .tags("stage", stage.tag(), "variant", variant)
+                    .register(registry)
+                    .record(rows * 1e9 / elapsedNanos);
+        }
+    }
+
+    /**
+     * Records a stage run that ended with an exception
+     */
+    public void failed(Stage stage, String variant, long startNanos) {
+        timer(stage, variant, "failure").record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts input rows a stage dropped as invalid
+     */
+    public void skipped(Stage stage, String variant, long rows) {
+        Counter.builder("pipeline.rows.skipped")
+                .description("Input rows dropped as invalid")
+                .tags("stage", stage.tag(), "variant", variant)
+                .register(registry)
+                .increment(rows);
+    }
+
+    /**
+     * Records the size of a temp file a stage staged its data in; missing files are ignored
+     * @param file Role of the file within the stage, used as the "file" tag
+     */
+    public void tempFile(Stage stage, String file, Path path) {
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            return;
+        }
+        DistributionSummary.builder("pipeline.temp.file.size")
+                .description("Size of temp files staged by the pipeline")
+                .baseUnit("bytes")
+                .tags("stage", stage.tag(), "file", file)
+                .register(registry)
+                .record(size);
+    }
+
+    /**
+     * Records one PostgreSQL COPY ... FROM STDIN, from its start to its end
+     * @param rows Rows the server reported as copied
+     */
+    public void copy(long startNanos, long rows) {
+        Timer.builder("pipeline.import.copy")
+                .description("Duration of the COPY statements of imports")
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("pipeline.import.copy.rows")
+                .description("Rows loaded by COPY statements")
+                .register(registry)
+                .increment(rows);
+    }
+
+    /**
+     * Exposes a cache's counters as the cache.* meters Micrometer uses for cache libraries.
+     * The stats are read on every scrape, not when the cache is used; the meters hold the
+     * cache weakly, as Micrometer does with all gauge state.
+     */
+    static <T> void bindCache(MeterRegistry registry, String name, T cache, Function<T, CacheStats> stats) {
+        FunctionCounter.builder("cache.gets", cache, c -> stats.apply(c).getHits())
+                .description("Cache lookups, by whether the value was held")
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> stats.apply(c).getMisses())
+                .description("Cache lookups, by whether the value was held")
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> stats.apply(c).getEvictions())
+                .description("Entries dropped to stay within the size bound")
+                .tags("cache", name)
+                .register(registry);
+        Gauge.builder("cache.size", cache, c -> stats.apply(c).getEntries())
+                .description("Entries held")
+                .tags("cache", name)
+                .register(registry);
+        Gauge.builder("cache.size.bytes", cache, c -> stats.apply(c).getSizeBytes())
+                .description("Estimated size of the held entries")
+                .baseUnit("bytes")
+                .tags("cache", name)
+                .register(registry);
+    }
+
+    private Timer timer(Stage stage, String variant, String outcome) {
+        return Timer.builder("pipeline.stage")
+                .description("Duration of pipeline stage runs")
+                .tags("stage", stage.tag(), "variant", variant, "outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter bytes(Stage stage, String variant, String direction) {
+        return Counter.builder("pipeline.bytes")
+                .description("Bytes read and written by completed stage runs")
+                .baseUnit("bytes")
+                .tags("stage", stage.tag(), "variant", variant, "direction", direction)
+                .register(registry);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.dataprocessor.service;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join scan of a {@link StudentSnapshot} counting scores per class.
+ *
+ * The result holds {@link #STRIDE}{@code  + buckets} longs per group: row count, rows with a
+ * score, score sum, minimum and maximum score, then the histogram. Group {@code c} is class
+ * code {@code c}; the last group collects students without a class. Score {@code s} falls
+ * into bucket {@code floorDiv(s - base, width)}.
+ */
+class ScoreDistributionTask extends RecursiveTask<long[]> {
+
+    static final int COUNT = 0;
+    static final int SCORED = 1;
+    static final int SUM = 2;
+    static final int MIN = 3;
+    static final int MAX = 4;
+    static final int STRIDE = 5;
+
+    /** Rows scanned by one task without splitting further */
+    private static final int LEAF_ROWS = 32 * 1024;
+
+    private final StudentSnapshot snapshot;
+    private final int base;
+    private final int width;
+    private final int buckets;
+    private final int from;
+    private final int to;
+
+    ScoreDistributionTask(StudentSnapshot snapshot, int base, int width, int buckets, int from, int to) {
+        this.snapshot = snapshot;
+        this.base = base;
+        this.width = width;
+        this.buckets = buckets;
+        this.from = from;
+        this.to = to;
+    }
+
+    static int groupCount(StudentSnapshot snapshot) {
+        return snapshot.getClassCount() + 1;
+    }
+
+    @Override
+    protected long[] compute() {
+        if (to - from <= LEAF_ROWS) {
+            return scan();
+        }
+        int middle = (from + to) >>> 1;
+        ScoreDistributionTask left = new ScoreDistributionTask(snapshot, base, width, buckets, from, middle);
+        left.fork();
+        long[] right = new ScoreDistributionTask(snapshot, base, width, buckets, middle, to).compute();
+        return merge(left.join(), right);
+    }
+
+    private long[] scan() {
+        int stride = STRIDE + buckets;
+        int noClass = snapshot.getClassCount();
+        long[] totals = newTotals();
+        for (int row = from; row < to; row++) {
+            int code = snapshot.classCode(row);
+            int offset = (code != StudentSnapshot.NULL ? code : noClass) * stride;
+            totals[offset + COUNT]++;
+            int score = snapshot.score(row);
+            if (score == StudentSnapshot.NULL) {
+                continue;
+            }
+            totals[offset + SCORED]++;
+            totals[offset + SUM] += score;
+            totals[offset + MIN] = Math.min(totals[offset + MIN], score);
+            totals[offset + MAX] = Math.max(totals[offset + MAX], score);
+            totals[offset + STRIDE + Math.floorDiv(score - base, width)]++;
+        }
+        return totals;
+    }
+
+    private long[] newTotals() {
+        int stride = STRIDE + buckets;
+        long[] totals = new long[groupCount(snapshot) * stride];
+        for (int offset = 0; offset < totals.length; offset += stride) {
+            totals[offset + MIN] = Long.MAX_VALUE;
+            totals[offset + MAX] = Long.MIN_VALUE;
+        }
+        return totals;
+    }
+
+    private long[] merge(long[] into, long[] other) {
+        int stride = STRIDE + buckets;
+        for (int offset = 0; offset < into.length; offset += stride) {
+            for (int i = 0; i < stride; i++) {
+                if (i == MIN) {
+                    into[offset + i] = Math.min(into[offset + i], other[offset + i]);
+                } else if (i == MAX) {
+                    into[offset + i] = Math.max(into[offset + i], other[offset + i]);
+                } else {
+                    into[offset + i] += other[offset + i];
+                }
+            }
+        }
+        return into;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.dataprocessor.service;
+
+/**
+ * Published after an import has committed new rows to the students table
+ */
+public class StudentDataChangedEvent {
+
+    private final long version;
+    private final String source;
+
+    public StudentDataChangedEvent(long version, String source) {
+        this.version = version;
+        this.source = source;
+    }
+
+    /**
+     * @return Data version after the change, see {@link StudentDataVersion}
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return What changed the data, e.g. "csv-import"
+     */
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.dataprocessor.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter that moves forward every time the students table is changed through this
+ * application. Anything derived from the table can be tagged with the version it was
+ * built from and treated as stale once the version has moved on; listeners of
+ * {@link StudentDataChangedEvent} are told as soon as it does.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StudentDataVersion {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Records a committed change and notifies listeners on the calling thread
+     * @param source What changed the data
+     */
+    public void changed(String source) {
+        long next = version.incrementAndGet();
+        log.debug("Student data changed by {}, version {}", source, next);
+        eventPublisher.publishEvent(new StudentDataChangedEvent(next, source));
+    }
+}
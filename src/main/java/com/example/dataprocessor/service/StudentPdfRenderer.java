@@ -0,0 +1,294 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.PdfStreamWriter;
+import com.example.dataprocessor.model.Student;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * Renders students as a paginated PDF table.
+ *
+ * Column positions, fonts and glyph widths are fixed up front. Rows are collected into
+ * batches of {@value #PAGES_PER_BATCH} pages that worker threads turn into compressed page
+ * content streams, each page a single text block; the calling thread writes finished
+ * batches to the {@link PdfStreamWriter} in order. Only a bounded window of batches is in
+ * flight, so memory does not grow with the number of rows.
+ */
+public class StudentPdfRenderer implements Closeable {
+
+    static final int ROWS_PER_PAGE = 48;
+    static final int PAGES_PER_BATCH = 20;
+
+    private static final String TITLE = "Student Data Export";
+    private static final String[] HEADERS = {"Student ID", "First Name", "Last Name", "Date of Birth", "Class", "Score"};
+    private static final float[] COLUMN_X = {50, 120, 240, 360, 450, 520};
+    private static final float RIGHT_EDGE = PdfStreamWriter.PAGE_WIDTH - 50;
+    private static final float COLUMN_GAP = 6;
+
+    private static final int TITLE_SIZE = 14;
+    private static final int HEADER_SIZE = 10;
+    private static final int ROW_SIZE = 8;
+    private static final float TITLE_Y = 765;
+    private static final float HEADER_Y = 740;
+    private static final float FIRST_ROW_Y = 722;
+    private static final float ROW_HEIGHT = 14;
+    private static final float FOOTER_Y = 30;
+
+    /** Helvetica advance widths per WinAnsi code, in 1/1000 em */
+    private static final float[] HELVETICA_WIDTHS = glyphWidths(PDType1Font.HELVETICA);
+    private static final float[] HELVETICA_BOLD_WIDTHS = glyphWidths(PDType1Font.HELVETICA_BOLD);
+
+    private final ExecutorService executor;
+    private final int window;
+    private final PdfStreamWriter writer;
+    private final Deque<Future<byte[][]>> inFlight = new ArrayDeque<>();
+    private List<Student> pending = new ArrayList<>(ROWS_PER_PAGE * PAGES_PER_BATCH);
+    private int batchCount;
+    private long rowCount;
+
+    /**
+     * @param out Stream receiving the document, left open
+     * @param executor Pool rendering page batches
+     * @param parallelism Number of pool threads to keep busy
+     */
+    public StudentPdfRenderer(OutputStream out, ExecutorService executor, int parallelism) throws IOException {
+        this.executor = executor;
+        this.window = Math.max(parallelism, 1) * 2;
+        this.writer = new PdfStreamWriter(out);
+    }
+
+    public void write(Student student) throws IOException {
+        pending.add(student);
+        rowCount++;
+        if (pending.size() == ROWS_PER_PAGE * PAGES_PER_BATCH) {
+            submitBatch();
+        }
+    }
+
+    /**
+     * @return Number of students written so far
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Renders the remaining rows and finishes the document
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!pending.isEmpty() || batchCount == 0) {
+                submitBatch();
+            }
+            while (!inFlight.isEmpty()) {
+                writeNextBatch();
+            }
+            writer.close();
+        } finally {
+            for (Future<byte[][]> batch : inFlight) {
+                batch.cancel(true);
+            }
+        }
+    }
+
+    private void submitBatch() throws IOException {
+        List<Student> rows = pending;
+        int firstPage = batchCount * PAGES_PER_BATCH;
+        pending = new ArrayList<>(ROWS_PER_PAGE * PAGES_PER_BATCH);
+        batchCount++;
+        inFlight.addLast(executor.submit(() -> renderBatch(rows, firstPage)));
+        while (inFlight.size() >= window) {
+            writeNextBatch();
+        }
+    }
+
+    private void writeNextBatch() throws IOException {
+        byte[][] pages;
+        try {
+            pages = inFlight.pollFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("PDF rendering interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to render PDF pages", e.getCause());
+        }
+        for (byte[] page : pages) {
+            writer.addPage(page, page.length, true);
+        }
+    }
+
+    /**
+     * Renders and compresses the pages of one batch
+     * @param rows Rows of the batch, at most {@value #ROWS_PER_PAGE} per page
+     * @param firstPage 0-based index of the batch's first page in the document
+     */
+    static byte[][] renderBatch(List<Student> rows, int firstPage) {
+        int pageCount = Math.max(1, (rows.size() + ROWS_PER_PAGE - 1) / ROWS_PER_PAGE);
+        byte[][] pages = new byte[pageCount][];
+        ContentBuffer content = new ContentBuffer(ROWS_PER_PAGE * 160 + 1024);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] compressed = new byte[content.data.length];
+        try {
+            for (int p = 0; p < pageCount; p++) {
+                content.reset();
+                int from = p * ROWS_PER_PAGE;
+                renderPage(content, rows.subList(from, Math.min(from + ROWS_PER_PAGE, rows.size())), firstPage + p);
+
+                deflater.reset();
+                deflater.setInput(content.data, 0, content.length);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    length += deflater.deflate(compressed, length, compressed.length - length);
+                }
+                pages[p] = Arrays.copyOf(compressed, length);
+            }
+        } finally {
+            deflater.end();
+        }
+        return pages;
+    }
+
+    private static void renderPage(ContentBuffer content, List<Student> rows, int pageIndex) {
+        // Header rule, drawn outside the text block
+        content.append("0.5 w ").number(COLUMN_X[0]).append(' ').number(HEADER_Y - 4).append(" m ")
+                .number(RIGHT_EDGE).append(' ').number(HEADER_Y - 4).append(" l S\n");
+
+        content.append("BT\n");
+        if (pageIndex == 0) {
+            content.font(PdfStreamWriter.BOLD_FONT, TITLE_SIZE);
+            content.text(COLUMN_X[0], TITLE_Y, TITLE, Float.MAX_VALUE, HELVETICA_BOLD_WIDTHS, TITLE_SIZE);
+        }
+
+        content.font(PdfStreamWriter.BOLD_FONT, HEADER_SIZE);
+        for (int c = 0; c < HEADERS.length; c++) {
+            content.text(COLUMN_X[c], HEADER_Y, HEADERS[c], columnWidth(c), HELVETICA_BOLD_WIDTHS, HEADER_SIZE);
+        }
+
+        content.font(PdfStreamWriter.REGULAR_FONT, ROW_SIZE);
+        float y = FIRST_ROW_Y;
+        for (Student student : rows) {
+            content.text(COLUMN_X[0], y, String.valueOf(student.getStudentId()), columnWidth(0), HELVETICA_WIDTHS, ROW_SIZE);
+            content.text(COLUMN_X[1], y, student.getFirstName(), columnWidth(1), HELVETICA_WIDTHS, ROW_SIZE);
+            content.text(COLUMN_X[2], y, student.getLastName(), columnWidth(2), HELVETICA_WIDTHS, ROW_SIZE);
+            content.text(COLUMN_X[3], y, student.getDob() != null ? student.getDob().toString() : "",
+                    columnWidth(3), HELVETICA_WIDTHS, ROW_SIZE);
+            content.text(COLUMN_X[4], y, student.getClazz(), columnWidth(4), HELVETICA_WIDTHS, ROW_SIZE);
+            content.text(COLUMN_X[5], y, String.valueOf(student.getScore() != null ? student.getScore() : 0),
+                    columnWidth(5), HELVETICA_WIDTHS, ROW_SIZE);
+            y -= ROW_HEIGHT;
+        }
+
+        content.text(COLUMN_X[0], FOOTER_Y, "Page " + (pageIndex + 1), Float.MAX_VALUE, HELVETICA_WIDTHS, ROW_SIZE);
+        content.append("ET\n");
+    }
+
+    private static float columnWidth(int column) {
+        float next = column + 1 < COLUMN_X.length ? COLUMN_X[column + 1] : RIGHT_EDGE;
+        return next - COLUMN_X[column] - COLUMN_GAP;
+    }
+
+    private static float[] glyphWidths(PDType1Font font) {
+        float[] widths = new float[256];
+        for (int code = 0; code < 256; code++) {
+            try {
+                widths[code] = font.getWidth(code);
+            } catch (IOException e) {
+                widths[code] = 0;
+            }
+        }
+        return widths;
+    }
+
+    /**
+     * Growable byte buffer for page content operators
+     */
+    private static final class ContentBuffer {
+
+        private byte[] data;
+        private int length;
+
+        ContentBuffer(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        ContentBuffer append(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                append(text.charAt(i));
+            }
+            return this;
+        }
+
+        ContentBuffer append(char c) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[length++] = (byte) c;
+            return this;
+        }
+
+        ContentBuffer number(float value) {
+            if (value == (int) value) {
+                return append(Integer.toString((int) value));
+            }
+            return append(Float.toString(value));
+        }
+
+        void font(String name, int size) {
+            append('/').append(name).append(' ').number(size).append(" Tf\n");
+        }
+
+        /**
+         * Shows text at an absolute position, cut off where it would overflow its column
+         */
+        void text(float x, float y, String value, float maxWidth, float[] widths, int size) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            append("1 0 0 1 ").number(x).append(' ').number(y).append(" Tm (");
+            float limit = maxWidth * 1000 / size;
+            float width = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = winAnsi(value.charAt(i));
+                width += widths[c];
+                if (width > limit) {
+                    break;
+                }
+                if (c == '(' || c == ')' || c == '\\') {
+                    append('\\');
+                }
+                append(c);
+            }
+            append(") Tj\n");
+        }
+
+        private static char winAnsi(char c) {
+            if (c < 0x20) {
+                return ' ';
+            }
+            // ASCII and Latin-1 match WinAnsi; anything else has no glyph in the standard fonts
+            return c < 0x7F || (c >= 0xA0 && c <= 0xFF) ? c : '?';
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.CacheStats;
+import com.example.dataprocessor.model.Student;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded in-memory cache of student query results.
+ *
+ * Keys are spread over {@code app.query-cache.stripes} independently locked LRU maps, so
+ * concurrent lookups of different keys rarely wait on each other. Each stripe holds an
+ * equal share of {@code app.query-cache.max-bytes}, measured with the estimated size of
+ * the cached results, and entries expire {@code app.query-cache.ttl} after they were
+ * loaded. Everything is dropped when a {@link StudentDataChangedEvent} arrives; a result
+ * loaded while the data changed is returned but not kept.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StudentQueryCache implements MeterBinder {
+
+    private final StudentDataVersion dataVersion;
+
+    @Value("${app.query-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.query-cache.ttl:30s}")
+    private Duration ttl;
+
+    @Value("${app.query-cache.stripes:16}")
+    private int stripeCount;
+
+    private Stripe[] stripes;
+    private long stripeMaxBytes;
+    private long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        // Power of two so a stripe is picked by masking the hash
+        int count = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMaxBytes = maxBytes / count;
+        ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached result for the key, or loads and caches it
+     * @param key Describes the query and all of its parameters
+     * @param loader Runs the query on a miss
+     * @param weigher Estimated heap size of a result in bytes
+     */
+    public <T> T get(String key, Supplier<T> loader, ToLongFunction<T> weigher) {
+        if (ttlNanos <= 0 || stripeMaxBytes <= 0) {
+            return loader.get();
+        }
+        Stripe stripe = stripeFor(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get(key);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    @SuppressWarnings("unchecked")
+                    T value = (T) entry.value;
+                    return value;
+                }
+                stripe.remove(key, entry);
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        long version = dataVersion.current();
+        T value = loader.get();
+        long weight = weigher.applyAsLong(value);
+        if (weight > stripeMaxBytes) {
+            return value;
+        }
+
+        synchronized (stripe) {
+            // Checked under the stripe lock, so a concurrent invalidation either runs first
+            // and we skip the put, or runs after and removes it
+            if (dataVersion.current() != version) {
+                return value;
+            }
+            Entry previous = stripe.entries.put(key, new Entry(value, weight, now));
+            stripe.bytes += weight;
+            if (previous != null) {
+                stripe.bytes -= previous.weight;
+            }
+            Iterator<Entry> eldest = stripe.entries.values().iterator();
+            while (stripe.bytes > stripeMaxBytes && eldest.hasNext()) {
+                stripe.bytes -= eldest.next().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Publishes {@link #getStats()} as cache.* meters tagged cache=student-query
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        PipelineMetrics.bindCache(registry, "student-query", this, StudentQueryCache::getStats);
+    }
+
+    public CacheStats getStats() {
+        int entries = 0;
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                entries += stripe.entries.size();
+                bytes += stripe.bytes;
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries, bytes);
+    }
+
+    /**
+     * Drops every cached result, all of which predate the change
+     */
+    @EventListener
+    public void onDataChanged(StudentDataChangedEvent event) {
+        int dropped = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                dropped += stripe.entries.size();
+                stripe.entries.clear();
+                stripe.bytes = 0;
+            }
+        }
+        log.debug("Data version {} ({}): dropped {} cached queries", event.getVersion(), event.getSource(), dropped);
+    }
+
+    /**
+     * Builds a key from query parameters; parts are length-prefixed so that no two
+     * parameter lists share a key, and null is distinct from an empty string
+     */
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder(64);
+        for (Object part : parts) {
+            if (part == null) {
+                key.append('-');
+                continue;
+            }
+            String value = part.toString();
+            key.append(value.length()).append(':').append(value);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Rough heap footprint of a list of students: object headers, fields and string contents
+     */
+    public static long estimateBytes(Collection<Student> students) {
+        long bytes = 128;
+        for (Student student : students) {
+            bytes += 96 + stringBytes(student.getFirstName()) + stringBytes(student.getLastName())
+                    + stringBytes(student.getClazz());
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value != null ? 40 + value.length() : 0;
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+
+        /** Access-ordered, eldest first */
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        void remove(String key, Entry entry) {
+            entries.remove(key);
+            bytes -= entry.weight;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long weight;
+        private final long loadedAt;
+
+        Entry(Object value, long weight, long loadedAt) {
+            this.value = value;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
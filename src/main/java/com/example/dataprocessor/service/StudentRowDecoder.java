@@ -0,0 +1,368 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.CsvRowWriter;
+import com.example.dataprocessor.io.XlsxSheetReader;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Decodes worksheet rows of the fixed student layout straight into CSV bytes.
+ *
+ * Each column has a known type: ID and score are integers, names and class are text and
+ * the date of birth is a date, given either as a date-formatted number or as yyyy-MM-dd
+ * text. Cell values are kept in reusable per-column buffers (numbers as doubles, text as
+ * chars) and written through a {@link CsvRowWriter} when the row ends, dates and numbers
+ * digit by digit. Only values outside the expected shape (fractions, text scores that are
+ * not integers, dates in other formats) are turned into Strings and run through
+ * {@link ExcelToCsvService#formatDateToIso} and {@link ExcelToCsvService#calculateNewScore},
+ * which keeps the output identical to converting every cell as text. Not thread-safe.
+ */
+final class StudentRowDecoder implements XlsxSheetReader.RowHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentRowDecoder.class);
+
+    static final int COLUMNS = 6;
+
+    private static final int ID = 0;
+    private static final int DOB = 3;
+    private static final int SCORE = 5;
+
+    private static final byte EMPTY = 0;
+    private static final byte NUMBER = 1;
+    private static final byte DATE = 2;
+    private static final byte TEXT = 3;
+
+    /** Excel serial day number of 1970-01-01 in the 1900 date system */
+    private static final int EPOCH_SERIAL = 25569;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ExcelToCsvService generic;
+    private final CsvRowWriter out;
+
+    private final byte[] kinds = new byte[COLUMNS];
+    private final double[] numbers = new double[COLUMNS];
+    private final char[][] chars = new char[COLUMNS][32];
+    private final int[] lengths = new int[COLUMNS];
+    private final int[] date = new int[3];
+    private final CharBuffer view = new CharBuffer();
+    private int lastColumn;
+    private boolean headerSeen;
+    private long rowCount;
+    private long skippedRows;
+
+    /**
+     * @param generic Text conversions for values outside the typed layout
+     * @param out Receives one CSV row per data row; the header row is skipped
+     */
+    StudentRowDecoder(ExcelToCsvService generic, CsvRowWriter out) {
+        this.generic = generic;
+        this.out = out;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    long getSkippedRows() {
+        return skippedRows;
+    }
+
+    @Override
+    public void startRow(int rowIndex) {
+        Arrays.fill(kinds, EMPTY);
+        lastColumn = -1;
+    }
+
+    @Override
+    public void numericCell(int column, double value, boolean isDate) {
+        if (column >= COLUMNS) {
+            return;
+        }
+        kinds[column] = isDate ? DATE : NUMBER;
+        numbers[column] = value;
+        lastColumn = Math.max(lastColumn, column);
+    }
+
+    @Override
+    public void stringCell(int column, String value) {
+        textCell(column, value);
+    }
+
+    @Override
+    public void textCell(int column, CharSequence value) {
+        if (column >= COLUMNS) {
+            return;
+        }
+        int length = value.length();
+        if (chars[column].length < length) {
+            chars[column] = new char[Math.max(length, chars[column].length * 2)];
+        }
+        char[] buffer = chars[column];
+        for (int i = 0; i < length; i++) {
+            buffer[i] = value.charAt(i);
+        }
+        kinds[column] = TEXT;
+        lengths[column] = length;
+        lastColumn = Math.max(lastColumn, column);
+    }
+
+    @Override
+    public void endRow(int rowIndex) {
+        // The first row holds the column titles
+        if (!headerSeen) {
+            headerSeen = true;
+            return;
+        }
+        if (lastColumn < COLUMNS - 1) {
+            logger.warn("Row {} has insufficient columns, skipping", rowIndex);
+            skippedRows++;
+            return;
+        }
+        try {
+            writeId();
+            writeText(1);
+            writeText(2);
+            writeDob();
+            writeText(4);
+            writeScore();
+            out.endRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (++rowCount % JobContext.REPORT_INTERVAL == 0) {
+            JobContext.addRows(JobContext.REPORT_INTERVAL);
+        }
+    }
+
+    private void writeId() throws IOException {
+        if (kinds[ID] == NUMBER && numbers[ID] == (int) numbers[ID]) {
+            out.field((int) numbers[ID]);
+        } else {
+            writeText(ID);
+        }
+    }
+
+    /**
+     * Writes a cell the way it reads as text: numbers without a needless ".0", dates as yyyy-MM-dd
+     */
+    private void writeText(int column) throws IOException {
+        switch (kinds[column]) {
+            case TEXT:
+                out.field(view.of(chars[column], lengths[column]));
+                break;
+            case NUMBER:
+                out.field(numberText(numbers[column]));
+                break;
+            case DATE:
+                if (!toDate(numbers[column])) {
+                    out.field(dateText(numbers[column]));
+                    break;
+                }
+                out.dateField(date[0], date[1], date[2]);
+                break;
+            default:
+                out.field("");
+                break;
+        }
+    }
+
+    private void writeDob() throws IOException {
+        if (kinds[DOB] == TEXT) {
+            char[] value = chars[DOB];
+            int from = 0;
+            int to = lengths[DOB];
+            while (from < to && value[from] <= ' ') {
+                from++;
+            }
+            while (to > from && value[to - 1] <= ' ') {
+                to--;
+            }
+            if (from == to || isIsoDate(value, from, to)) {
+                // Already in the target format once trimmed
+                out.field(view.of(value, lengths[DOB]), from, to);
+            } else {
+                out.field(generic.formatDateToIso(new String(value, 0, lengths[DOB])));
+            }
+        } else if (kinds[DOB] == NUMBER) {
+            out.field(generic.formatDateToIso(numberText(numbers[DOB])));
+        } else {
+            writeText(DOB);
+        }
+    }
+
+    /**
+     * Excel score + 10; an empty score becomes 0 as in {@link ExcelToCsvService#calculateNewScore}
+     */
+    private void writeScore() throws IOException {
+        switch (kinds[SCORE]) {
+            case EMPTY:
+                out.field(0);
+                return;
+            case NUMBER:
+                double number = numbers[SCORE];
+                if (number == (int) number) {
+                    out.field((int) number + 10);
+                    return;
+                }
+                out.field(generic.calculateNewScore(numberText(number)));
+                return;
+            case TEXT:
+                long score = parseInt(chars[SCORE], lengths[SCORE]);
+                if (score != Long.MIN_VALUE) {
+                    out.field((int) score + 10);
+                    return;
+                }
+                out.field(generic.calculateNewScore(new String(chars[SCORE], 0, lengths[SCORE])));
+                return;
+            default:
+                out.field(generic.calculateNewScore(dateText(numbers[SCORE])));
+        }
+    }
+
+    /**
+     * Converts an Excel serial date of the 1900 system into {@link #date} as year, month, day
+     * @return false for serials before March 1900, where Excel's phantom leap day makes the
+     *         arithmetic differ from POI's
+     */
+    private boolean toDate(double serial) {
+        if (!DateUtil.isValidExcelDate(serial) || serial < 61) {
+            return false;
+        }
+        long days = (long) Math.floor(serial);
+        // Same millisecond rounding as DateUtil, which may carry into the next day
+        long millis = Math.round((serial - days) * MILLIS_PER_DAY);
+        if (millis >= MILLIS_PER_DAY) {
+            days++;
+        }
+        long epochDay = days - EPOCH_SERIAL;
+        // Civil date from days since 1970-01-01 (Hinnant's algorithm)
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year > 9999) {
+            return false;
+        }
+        date[0] = (int) year;
+        date[1] = month;
+        date[2] = day;
+        return true;
+    }
+
+    private static String dateText(double serial) {
+        return DateUtil.getLocalDateTime(serial).toLocalDate().format(ExcelToCsvService.DATE_FORMATTER);
+    }
+
+    private static String numberText(double value) {
+        return value == (int) value ? String.valueOf((int) value) : String.valueOf(value);
+    }
+
+    /**
+     * Parses an optionally signed integer of at most nine digits, surrounded by whitespace
+     * @return The value, or Long.MIN_VALUE if the text is anything else
+     */
+    private static long parseInt(char[] value, int length) {
+        int from = 0;
+        int to = length;
+        while (from < to && value[from] <= ' ') {
+            from++;
+        }
+        while (to > from && value[to - 1] <= ' ') {
+            to--;
+        }
+        boolean negative = false;
+        if (from < to && (value[from] == '-' || value[from] == '+')) {
+            negative = value[from] == '-';
+            from++;
+        }
+        if (from == to || to - from > 9) {
+            return Long.MIN_VALUE;
+        }
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            if (value[i] < '0' || value[i] > '9') {
+                return Long.MIN_VALUE;
+            }
+            result = result * 10 + (value[i] - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Whether {@code value[from, to)} is a valid yyyy-MM-dd date, which
+     * {@link ExcelToCsvService#formatDateToIso} would return unchanged
+     */
+    static boolean isIsoDate(char[] value, int from, int to) {
+        if (to - from != 10 || value[from + 4] != '-' || value[from + 7] != '-') {
+            return false;
+        }
+        int year = digits(value, from, 4);
+        int month = digits(value, from + 5, 2);
+        int day = digits(value, from + 8, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        int monthLength = month == 2 ? (isLeapYear(year) ? 29 : 28) : 30 + ((month + month / 8) & 1);
+        return day <= monthLength;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int digits(char[] value, int from, int count) {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            if (value[i] < '0' || value[i] > '9') {
+                return -1;
+            }
+            result = result * 10 + (value[i] - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Views the start of a column buffer as a CharSequence without copying; one per decoder
+     */
+    private static final class CharBuffer implements CharSequence {
+
+        private char[] value;
+        private int length;
+
+        CharBuffer of(char[] value, int length) {
+            this.value = value;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return value[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(value, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(value, 0, length);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.Student;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column-wise copy of the students table for analytics.
+ *
+ * Row i of the table is spread over primitive arrays: {@code ids[i]}, {@code scores[i]},
+ * {@code dobs[i]} as epoch days, {@code classCodes[i]} indexing the class dictionary, and
+ * the UTF-8 bytes of first and last name between consecutive entries of
+ * {@code nameOffsets}. Missing scores, dates and classes are stored as {@link #NULL}.
+ * Rows are in student ID order.
+ */
+public final class StudentSnapshot {
+
+    /** Marks a missing score, date of birth or class */
+    public static final int NULL = Integer.MIN_VALUE;
+
+    private final long version;
+    private final long builtAt;
+    private final int rowCount;
+    private final long[] ids;
+    private final int[] scores;
+    private final int[] dobs;
+    private final int[] classCodes;
+    private final String[] classes;
+    private final byte[] names;
+    private final int[] nameOffsets;
+    private final int minScore;
+    private final int maxScore;
+
+    private StudentSnapshot(Builder builder) {
+        this.version = builder.version;
+        this.builtAt = System.currentTimeMillis();
+        this.rowCount = builder.rowCount;
+        this.ids = Arrays.copyOf(builder.ids, rowCount);
+        this.scores = Arrays.copyOf(builder.scores, rowCount);
+        this.dobs = Arrays.copyOf(builder.dobs, rowCount);
+        this.classCodes = Arrays.copyOf(builder.classCodes, rowCount);
+        this.classes = builder.classes.toArray(new String[0]);
+        this.names = Arrays.copyOf(builder.names, builder.nameLength);
+        this.nameOffsets = Arrays.copyOf(builder.nameOffsets, rowCount * 2 + 1);
+        this.minScore = builder.minScore;
+        this.maxScore = builder.maxScore;
+    }
+
+    /**
+     * @return {@link StudentDataVersion} the snapshot was read at
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getClassCount() {
+        return classes.length;
+    }
+
+    /**
+     * @return Lowest score, or {@link #NULL} if no student has one
+     */
+    public int getMinScore() {
+        return minScore;
+    }
+
+    /**
+     * @return Highest score, or {@link #NULL} if no student has one
+     */
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public String className(int code) {
+        return classes[code];
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public int score(int row) {
+        return scores[row];
+    }
+
+    public int dob(int row) {
+        return dobs[row];
+    }
+
+    public int classCode(int row) {
+        return classCodes[row];
+    }
+
+    public String firstName(int row) {
+        return name(row * 2);
+    }
+
+    public String lastName(int row) {
+        return name(row * 2 + 1);
+    }
+
+    /**
+     * @return Row of the student, or -1 if the snapshot has no such student
+     */
+    public int rowOf(long studentId) {
+        int row = Arrays.binarySearch(ids, studentId);
+        return row >= 0 ? row : -1;
+    }
+
+    /**
+     * Materializes one row as an entity-shaped object
+     */
+    public Student student(int row) {
+        return new Student(ids[row], firstName(row), lastName(row),
+                dobs[row] != NULL ? LocalDate.ofEpochDay(dobs[row]) : null,
+                classCodes[row] != NULL ? classes[classCodes[row]] : null,
+                scores[row] != NULL ? scores[row] : null);
+    }
+
+    /**
+     * @return Bytes held by the column arrays
+     */
+    public long memoryBytes() {
+        long bytes = (long) ids.length * 8 + (long) scores.length * 4 + (long) dobs.length * 4
+                + (long) classCodes.length * 4 + names.length + (long) nameOffsets.length * 4;
+        for (String clazz : classes) {
+            bytes += 40 + clazz.length();
+        }
+        return bytes;
+    }
+
+    private String name(int index) {
+        int from = nameOffsets[index];
+        return new String(names, from, nameOffsets[index + 1] - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collects rows into growing column arrays
+     */
+    static final class Builder {
+
+        private final long version;
+        private int rowCount;
+        private long[] ids = new long[1024];
+        private int[] scores = new int[1024];
+        private int[] dobs = new int[1024];
+        private int[] classCodes = new int[1024];
+        private final Map<String, Integer> classDictionary = new HashMap<>();
+        private final List<String> classes = new ArrayList<>();
+        private byte[] names = new byte[16 * 1024];
+        private int nameLength;
+        private int[] nameOffsets = new int[2048 + 1];
+        private int minScore = NULL;
+        private int maxScore = NULL;
+
+        Builder(long version) {
+            this.version = version;
+        }
+
+        void add(Student student) {
+            if (rowCount == ids.length) {
+                int capacity = rowCount * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                dobs = Arrays.copyOf(dobs, capacity);
+                classCodes = Arrays.copyOf(classCodes, capacity);
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity * 2 + 1);
+            }
+            int row = rowCount++;
+            ids[row] = student.getStudentId();
+            scores[row] = student.getScore() != null ? student.getScore() : NULL;
+            if (scores[row] != NULL) {
+                minScore = minScore == NULL ? scores[row] : Math.min(minScore, scores[row]);
+                maxScore = maxScore == NULL ? scores[row] : Math.max(maxScore, scores[row]);
+            }
+            dobs[row] = student.getDob() != null ? (int) student.getDob().toEpochDay() : NULL;
+            classCodes[row] = student.getClazz() != null ? classCode(student.getClazz()) : NULL;
+            nameOffsets[row * 2 + 1] = appendName(student.getFirstName());
+            nameOffsets[row * 2 + 2] = appendName(student.getLastName());
+        }
+
+        StudentSnapshot build() {
+            return new StudentSnapshot(this);
+        }
+
+        private int classCode(String clazz) {
+            Integer code = classDictionary.get(clazz);
+            if (code == null) {
+                code = classes.size();
+                classDictionary.put(clazz, code);
+                classes.add(clazz);
+            }
+            return code;
+        }
+
+        /**
+         * @return Offset just past the appended name
+         */
+        private int appendName(String name) {
+            if (name != null && !name.isEmpty()) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                if (nameLength + bytes.length > names.length) {
+                    long capacity = Math.max((long) names.length * 2, (long) nameLength + bytes.length);
+                    if (capacity > Integer.MAX_VALUE - 8) {
+                        throw new IllegalStateException("Student names exceed the snapshot's 2 GB name column");
+                    }
+                    names = Arrays.copyOf(names, (int) capacity);
+                }
+                System.arraycopy(bytes, 0, names, nameLength, bytes.length);
+                nameLength += bytes.length;
+            }
+            return nameLength;
+        }
+    }
+}
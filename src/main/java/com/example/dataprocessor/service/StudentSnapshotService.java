@@ -0,0 +1,176 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.model.ClassScoreDistribution;
+import com.example.dataprocessor.model.ScoreDistributionReport;
+import com.example.dataprocessor.repository.StudentExportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps a {@link StudentSnapshot} of the students table for analytics.
+ *
+ * The snapshot is read once the application has started and again after every
+ * {@link StudentDataChangedEvent}, on a background thread; changes that arrive while a build
+ * is running are folded into one more build. Readers always see a complete snapshot, which
+ * is replaced in a single reference swap. Disabled with {@code app.snapshot.enabled=false}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StudentSnapshotService {
+
+    private final StudentExportRepository studentExportRepository;
+    private final StudentDataVersion dataVersion;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.snapshot.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicReference<StudentSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private ExecutorService builder;
+
+    @PostConstruct
+    void init() {
+        builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "student-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        builder.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The latest complete snapshot, empty while the first one is being built or if disabled
+     */
+    public Optional<StudentSnapshot> current() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        requestRebuild();
+    }
+
+    @EventListener
+    public void onDataChanged(StudentDataChangedEvent event) {
+        requestRebuild();
+    }
+
+    /**
+     * Queues a build unless one is already waiting to start
+     */
+    public void requestRebuild() {
+        if (enabled && rebuildQueued.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    snapshot.set(build());
+                } catch (RuntimeException e) {
+                    // Keep serving the previous snapshot
+                    log.error("Failed to build student snapshot", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Score count, range, mean and histogram per class, scanned in parallel over the snapshot
+     * @param bucketWidth Score range covered by each histogram bucket
+     * @return The report, empty if there is no snapshot yet
+     */
+    public Optional<ScoreDistributionReport> scoreDistribution(int bucketWidth) {
+        StudentSnapshot current = snapshot.get();
+        if (current == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+
+        int base = current.getMinScore() != StudentSnapshot.NULL
+                ? Math.floorDiv(current.getMinScore(), bucketWidth) * bucketWidth : 0;
+        int buckets = current.getMaxScore() != StudentSnapshot.NULL
+                ? Math.floorDiv(current.getMaxScore() - base, bucketWidth) + 1 : 0;
+        long[] totals = ForkJoinPool.commonPool().invoke(
+                new ScoreDistributionTask(current, base, bucketWidth, buckets, 0, current.getRowCount()));
+
+        ScoreDistributionReport report = new ScoreDistributionReport();
+        report.setSnapshotVersion(current.getVersion());
+        report.setSnapshotBuiltAt(current.getBuiltAt());
+        report.setRowCount(current.getRowCount());
+        report.setSnapshotBytes(current.memoryBytes());
+        report.setBucketWidth(bucketWidth);
+        int stride = ScoreDistributionTask.STRIDE + buckets;
+        for (int group = 0; group < ScoreDistributionTask.groupCount(current); group++) {
+            int offset = group * stride;
+            if (totals[offset + ScoreDistributionTask.COUNT] == 0) {
+                continue;
+            }
+            ClassScoreDistribution distribution = new ClassScoreDistribution();
+            distribution.setClazz(group < current.getClassCount() ? current.className(group) : null);
+            distribution.setCount(totals[offset + ScoreDistributionTask.COUNT]);
+            long scored = totals[offset + ScoreDistributionTask.SCORED];
+            distribution.setScoredCount(scored);
+            if (scored > 0) {
+                distribution.setMinScore((int) totals[offset + ScoreDistributionTask.MIN]);
+                distribution.setMaxScore((int) totals[offset + ScoreDistributionTask.MAX]);
+                distribution.setMeanScore((double) totals[offset + ScoreDistributionTask.SUM] / scored);
+            }
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                long count = totals[offset + ScoreDistributionTask.STRIDE + bucket];
+                if (count > 0) {
+                    distribution.getHistogram().put(base + bucket * bucketWidth, count);
+                }
+            }
+            report.getClasses().add(distribution);
+        }
+        report.getClasses().sort(Comparator.comparing(ClassScoreDistribution::getClazz,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return Optional.of(report);
+    }
+
+    private StudentSnapshot build() {
+        long start = System.nanoTime();
+        StudentSnapshot.Builder rows = new StudentSnapshot.Builder(dataVersion.current());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try {
+                studentExportRepository.forEach(null, null, null, rows::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        StudentSnapshot built = rows.build();
+        log.info("Built student snapshot v{}: {} rows, {} classes, {} KB in {} ms", built.getVersion(),
+                built.getRowCount(), built.getClassCount(), built.memoryBytes() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.repository.StudentExportRepository.StudentRowCallback;
+
+import java.io.IOException;
+
+/**
+ * Supplies the students of an export one at a time, without holding them all in memory
+ */
+@FunctionalInterface
+public interface StudentSource {
+
+    /**
+     * Passes every student to the callback, in order
+     * @return Number of students passed
+     */
+    long forEach(StudentRowCallback callback) throws IOException;
+}
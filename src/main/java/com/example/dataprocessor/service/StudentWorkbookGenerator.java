@@ -0,0 +1,255 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.XlsxRowEncoder;
+import com.example.dataprocessor.io.XlsxStreamWriter;
+import org.apache.poi.ss.SpreadsheetVersion;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * Parallel, seedable engine behind {@link ExcelGeneratorService}.
+ *
+ * The requested row range is split into chunks that are generated and rendered to sheet XML
+ * on the worker pool. Every block of {@value #SEED_BLOCK_ROWS} rows draws from its own
+ * {@link SplittableRandom}, seeded from the workbook seed and the block index, so the same
+ * seed always produces the same rows whatever the pool or chunk size. The calling thread
+ * only stitches finished chunks together in order, rolling over to a new sheet whenever a
+ * sheet reaches the XLSX row limit.
+ */
+public class StudentWorkbookGenerator {
+
+    /** Data rows per sheet; one row of each sheet is taken by the header */
+    static final int MAX_DATA_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    /** Rows sharing one random stream; chunk boundaries are aligned to it */
+    static final int SEED_BLOCK_ROWS = 4096;
+
+    private static final String[] HEADERS = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
+    private static final String[] CLASSES = {"Class1", "Class2", "Class3", "Class4", "Class5"};
+
+    // DOB range 2000-01-01..2010-12-31, pre-formatted once instead of per row
+    private static final LocalDate MIN_DOB = LocalDate.of(2000, 1, 1);
+    private static final LocalDate MAX_DOB = LocalDate.of(2010, 12, 31);
+    private static final String[] DOB_VALUES = formatDobRange();
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int maxRowsPerSheet;
+
+    public StudentWorkbookGenerator(ExecutorService executor, int parallelism, int chunkSize) {
+        this(executor, parallelism, chunkSize, MAX_DATA_ROWS_PER_SHEET);
+    }
+
+    StudentWorkbookGenerator(ExecutorService executor, int parallelism, int chunkSize, int maxRowsPerSheet) {
+        if (parallelism < 1 || chunkSize < 1 || maxRowsPerSheet < 1) {
+            throw new IllegalArgumentException("parallelism, chunkSize and maxRowsPerSheet must be positive");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        // Round up to whole seed blocks so every chunk starts on a fresh random stream
+        this.chunkSize = (chunkSize + SEED_BLOCK_ROWS - 1) / SEED_BLOCK_ROWS * SEED_BLOCK_ROWS;
+        this.maxRowsPerSheet = maxRowsPerSheet;
+    }
+
+    /**
+     * Generates {@code count} student rows and writes them as an XLSX workbook
+     * @param target File to write
+     * @param count Number of student records to generate
+     * @param seed Seed that fully determines the generated data
+     * @throws IOException if the workbook cannot be written or generation is interrupted
+     */
+    public void generate(Path target, long count, long seed) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            generate(out, count, seed);
+        }
+    }
+
+    /**
+     * Generates {@code count} student rows and writes them as an XLSX workbook
+     * @param out Stream receiving the workbook, left open
+     * @param count Number of student records to generate
+     * @param seed Seed that fully determines the generated data
+     * @throws IOException if the workbook cannot be written or generation is interrupted
+     */
+    public void generate(OutputStream out, long count, long seed) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (XlsxStreamWriter writer = new XlsxStreamWriter(out, Deflater.BEST_SPEED)) {
+            long chunkCount = (count + chunkSize - 1) / chunkSize;
+            long nextChunk = 0;
+            int currentSheet = -1;
+            // Keep a bounded window of chunks in flight so memory does not grow with count
+            int window = parallelism * 2;
+
+            while (nextChunk < chunkCount || !inFlight.isEmpty()) {
+                while (nextChunk < chunkCount && inFlight.size() < window) {
+                    long firstIndex = nextChunk * chunkSize;
+                    int rows = (int) Math.min(chunkSize, count - firstIndex);
+                    inFlight.addLast(executor.submit(() -> renderChunk(firstIndex, rows, seed)));
+                    nextChunk++;
+                }
+
+                Chunk chunk = await(inFlight.pollFirst());
+                for (Segment segment : chunk.segments) {
+                    if (segment.sheetIndex != currentSheet) {
+                        currentSheet = segment.sheetIndex;
+                        startSheet(writer, currentSheet);
+                    }
+                    writer.writeRows(segment.xml, 0, segment.length);
+                }
+                JobContext.addRows(chunk.rows);
+            }
+
+            if (count == 0) {
+                startSheet(writer, 0);
+            }
+        } finally {
+            for (Future<Chunk> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Generates and renders one chunk of rows
+     * @param firstIndex 0-based index of the first data row, aligned to a seed block
+     * @param rows Number of rows in the chunk
+     * @param seed Workbook seed
+     */
+    Chunk renderChunk(long firstIndex, int rows, long seed) {
+        Chunk chunk = new Chunk(rows);
+        XlsxRowEncoder encoder = new XlsxRowEncoder(rows * 200);
+        char[] name = new char[8];
+        SplittableRandom random = null;
+        int sheetIndex = (int) (firstIndex / maxRowsPerSheet);
+
+        for (int i = 0; i < rows; i++) {
+            long index = firstIndex + i;
+            if (index % SEED_BLOCK_ROWS == 0) {
+                random = new SplittableRandom(blockSeed(seed, index / SEED_BLOCK_ROWS));
+            }
+            if (index / maxRowsPerSheet != sheetIndex) {
+                chunk.add(sheetIndex, encoder);
+                encoder = new XlsxRowEncoder(encoder.buffer().length);
+                sheetIndex = (int) (index / maxRowsPerSheet);
+            }
+
+            encoder.startRow((int) (index % maxRowsPerSheet) + 2);
+            // studentId = 1-based position in the workbook
+            encoder.numberCell(index + 1);
+            // firstName, lastName = random alphabetic strings length 3..8
+            encoder.stringCell(name, 0, randomAlpha(random, name));
+            encoder.stringCell(name, 0, randomAlpha(random, name));
+            // DOB = random date between 2000-01-01 and 2010-12-31
+            encoder.stringCell(DOB_VALUES[random.nextInt(DOB_VALUES.length)]);
+            encoder.stringCell(CLASSES[random.nextInt(CLASSES.length)]);
+            // score = random int between 55 and 75 inclusive
+            encoder.numberCell(random.nextInt(21) + 55);
+            encoder.endRow();
+        }
+        chunk.add(sheetIndex, encoder);
+        return chunk;
+    }
+
+    /**
+     * Derives an independent seed for a block; mixing (rather than offsetting) keeps the
+     * per-block SplittableRandom sequences from overlapping
+     */
+    static long blockSeed(long seed, long blockIndex) {
+        long z = seed + (blockIndex + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void startSheet(XlsxStreamWriter writer, int sheetIndex) throws IOException {
+        writer.startSheet(sheetIndex == 0 ? "Students" : "Students" + (sheetIndex + 1), null);
+        XlsxRowEncoder header = new XlsxRowEncoder(256);
+        header.startRow(1);
+        for (String name : HEADERS) {
+            header.stringCell(name);
+        }
+        header.endRow();
+        writer.writeRows(header);
+    }
+
+    private static int randomAlpha(SplittableRandom random, char[] buffer) {
+        int length = random.nextInt(3, 9);
+        for (int i = 0; i < length; i++) {
+            buffer[i] = (char) (random.nextInt(26) + 'A');
+        }
+        return length;
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Excel generation interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to generate student rows", e.getCause());
+        }
+    }
+
+    private static String[] formatDobRange() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        int days = (int) (MAX_DOB.toEpochDay() - MIN_DOB.toEpochDay()) + 1;
+        String[] values = new String[days];
+        for (int i = 0; i < days; i++) {
+            values[i] = MIN_DOB.plusDays(i).format(formatter);
+        }
+        return values;
+    }
+
+    /**
+     * Rendered rows of one chunk, split where the chunk crosses a sheet boundary
+     */
+    static final class Chunk {
+
+        final int rows;
+        final List<Segment> segments = new ArrayList<>(1);
+
+        Chunk(int rows) {
+            this.rows = rows;
+        }
+
+        void add(int sheetIndex, XlsxRowEncoder encoder) {
+            segments.add(new Segment(sheetIndex, encoder.buffer(), encoder.length()));
+        }
+    }
+
+    static final class Segment {
+
+        final int sheetIndex;
+        final byte[] xml;
+        final int length;
+
+        Segment(int sheetIndex, byte[] xml, int length) {
+            this.sheetIndex = sheetIndex;
+            this.xml = xml;
+            this.length = length;
+        }
+    }
+}
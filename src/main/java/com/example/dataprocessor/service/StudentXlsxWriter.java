@@ -0,0 +1,163 @@
+package com.example.dataprocessor.service;
+
+import com.example.dataprocessor.io.XlsxRowEncoder;
+import com.example.dataprocessor.io.XlsxStreamWriter;
+import com.example.dataprocessor.model.Student;
+import org.apache.poi.ss.SpreadsheetVersion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Streams students into an XLSX workbook with the export's six-column layout.
+ *
+ * Rows are rendered as inline-string sheet XML and written straight into the zip stream in
+ * blocks of about {@value #FLUSH_BYTES} bytes, so memory does not grow with the export. The
+ * first {@value #SAMPLE_ROWS} students are held back to estimate column widths, which
+ * must precede the sheet data. Dates are written as native date cells. A sheet that
+ * reaches the XLSX row limit rolls over to "Students2", "Students3" and so on.
+ */
+public class StudentXlsxWriter implements Closeable {
+
+    /** Rows used to estimate column widths */
+    static final int SAMPLE_ROWS = 1000;
+
+    private static final int FLUSH_BYTES = 64 * 1024;
+    private static final int MAX_DATA_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+    private static final String[] HEADERS = {"Student ID", "First Name", "Last Name", "Date of Birth", "Class", "Score"};
+    private static final int DATE_WIDTH = 10;
+    private static final int MAX_WIDTH = 60;
+
+    private final XlsxStreamWriter writer;
+    private final XlsxRowEncoder encoder = new XlsxRowEncoder(FLUSH_BYTES + 4096);
+    private List<Student> sample = new ArrayList<>();
+    private double[] columnWidths;
+    private long rowCount;
+    private int sheetRow;
+
+    /**
+     * @param out Stream receiving the workbook, left open
+     */
+    public StudentXlsxWriter(OutputStream out) {
+        this.writer = new XlsxStreamWriter(out, Deflater.BEST_SPEED);
+    }
+
+    public void write(Student student) throws IOException {
+        if (sample != null) {
+            sample.add(student);
+            if (sample.size() >= SAMPLE_ROWS) {
+                flushSample();
+            }
+            return;
+        }
+        writeRow(student);
+    }
+
+    /**
+     * @return Number of students written so far
+     */
+    public long getRowCount() {
+        return rowCount + (sample != null ? sample.size() : 0);
+    }
+
+    /**
+     * Writes any buffered rows and finishes the workbook
+     */
+    @Override
+    public void close() throws IOException {
+        if (sample != null) {
+            flushSample();
+        }
+        flushRows();
+        writer.close();
+    }
+
+    private void flushSample() throws IOException {
+        columnWidths = estimateWidths(sample);
+        List<Student> rows = sample;
+        sample = null;
+        startSheet();
+        for (Student student : rows) {
+            writeRow(student);
+        }
+    }
+
+    private void writeRow(Student student) throws IOException {
+        if (sheetRow == MAX_DATA_ROWS_PER_SHEET) {
+            flushRows();
+            startSheet();
+        }
+        sheetRow++;
+        rowCount++;
+
+        encoder.startRow(sheetRow + 1);
+        encoder.numberCell(student.getStudentId());
+        encoder.stringCell(student.getFirstName());
+        encoder.stringCell(student.getLastName());
+        if (student.getDob() != null) {
+            encoder.dateCell(student.getDob().toEpochDay());
+        } else {
+            encoder.emptyCell();
+        }
+        encoder.stringCell(student.getClazz());
+        encoder.numberCell(student.getScore() != null ? student.getScore() : 0);
+        encoder.endRow();
+
+        if (encoder.length() >= FLUSH_BYTES) {
+            flushRows();
+        }
+    }
+
+    private void startSheet() throws IOException {
+        int sheetIndex = writer.sheetCount();
+        writer.startSheet(sheetIndex == 0 ? "Students" : "Students" + (sheetIndex + 1), columnWidths);
+        encoder.startRow(1);
+        for (String header : HEADERS) {
+            encoder.stringCell(header);
+        }
+        encoder.endRow();
+        sheetRow = 0;
+    }
+
+    private void flushRows() throws IOException {
+        if (encoder.length() > 0) {
+            writer.writeRows(encoder);
+            encoder.reset();
+        }
+    }
+
+    /**
+     * Column widths in characters from the longest header or sampled value, plus padding
+     */
+    static double[] estimateWidths(List<Student> rows) {
+        int[] chars = new int[HEADERS.length];
+        for (int i = 0; i < HEADERS.length; i++) {
+            chars[i] = HEADERS[i].length();
+        }
+        for (Student student : rows) {
+            chars[0] = Math.max(chars[0], digits(student.getStudentId()));
+            chars[1] = Math.max(chars[1], length(student.getFirstName()));
+            chars[2] = Math.max(chars[2], length(student.getLastName()));
+            chars[3] = Math.max(chars[3], DATE_WIDTH);
+            chars[4] = Math.max(chars[4], length(student.getClazz()));
+            chars[5] = Math.max(chars[5], student.getScore() != null ? digits(student.getScore()) : 1);
+        }
+        double[] widths = new double[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            widths[i] = Math.min(chars[i], MAX_WIDTH) + 2;
+        }
+        return widths;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static int digits(long value) {
+        return Long.toString(value).length();
+    }
+}
@@ -0,0 +1,28 @@
+-- Applied after Hibernate has created/updated the students table
+-- (spring.jpa.defer-datasource-initialization), on every startup.
+
+-- Trigram indexes so substring (LIKE '%x%') and similarity searches on names
+-- do not scan the whole table. The indexed expressions must match the queries:
+-- lower(first_name) / lower(last_name).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_students_first_name_trgm
+    ON students USING gin (lower(first_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_students_last_name_trgm
+    ON students USING gin (lower(last_name) gin_trgm_ops);
+
+-- Score aggregates per class, maintained by every import in the transaction that
+-- commits its rows, so reports do not have to group the students table.
+-- class '' holds students without a class; score_sketch is a serialized ScoreSketch.
+CREATE TABLE IF NOT EXISTS student_class_stats (
+    class        varchar(255) PRIMARY KEY,
+    row_count    bigint       NOT NULL,
+    scored_count bigint       NOT NULL,
+    score_sum    bigint       NOT NULL,
+    min_score    integer,
+    max_score    integer,
+    histogram    text         NOT NULL,
+    score_sketch bytea        NOT NULL,
+    updated_at   timestamp    NOT NULL
+);
@@ -0,0 +1,188 @@
+package com.example.dataprocessor.io;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvMalformedLineException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedCsvReaderTest {
+
+    /** Window sizes small enough that rows, quotes and "\r\n" straddle window boundaries */
+    private static final int[] WINDOWS = {1, 2, 3, 5, 7, 8, 13, 16, 31, 64, 4096};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void plainRows() throws Exception {
+        assertSameAsOpenCsv("studentId,firstName,score\n1,Ann,70\n2,Bob,80\n");
+    }
+
+    @Test
+    void lastRowWithoutLineBreak() throws Exception {
+        assertSameAsOpenCsv("a,b\n1,2");
+    }
+
+    @Test
+    void crlfLineEndings() throws Exception {
+        assertSameAsOpenCsv("a,b\r\n1,2\r\n3,4\r\n");
+    }
+
+    @Test
+    void quotedFieldsAsWrittenByCsvWriter() throws Exception {
+        assertSameAsOpenCsv("\"1\",\"Ann\",\"2001-02-03\",\"Class1\",\"70\"\n\"2\",\"Bob\",\"2002-03-04\",\"Class2\",\"80\"\n");
+    }
+
+    @Test
+    void doubledQuotes() throws Exception {
+        assertSameAsOpenCsv("\"say \"\"hi\"\"\",\"\"\"\",\"\"\"\"\"\"\n\"\",\"x\"\"\"\n");
+    }
+
+    @Test
+    void quotedSeparatorsAndLineBreaks() throws Exception {
+        assertSameAsOpenCsv("\"a,b\",\"line1\nline2\",c\n\"x\",\"\n\",\"\"\n");
+    }
+
+    @Test
+    void emptyFields() throws Exception {
+        assertSameAsOpenCsv("a,,c\n,,\n\"\",,\"\"\n");
+    }
+
+    @Test
+    void multiByteCharacters() throws Exception {
+        assertSameAsOpenCsv("\"Zoë\",\"Класс А\",\"😀\",日本\n");
+    }
+
+    @Test
+    void rowLongerThanLargestTestedWindow() throws Exception {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            row.append(i > 0 ? "," : "").append("\"field ").append(i).append(" with \"\"quotes\"\"\"");
+        }
+        assertSameAsOpenCsv("a,b\n" + row + "\r\n1,2\r\n");
+    }
+
+    @Test
+    void unterminatedQuoteRunsToEndOfFile() throws Exception {
+        for (int window : WINDOWS) {
+            assertThat(readMapped("a,b\n1,\"open\nrest", window))
+                    .containsExactly(Arrays.asList("a", "b"), Arrays.asList("1", "open\nrest"));
+        }
+    }
+
+    @Test
+    void textAfterClosingQuoteIsDropped() throws Exception {
+        for (int window : WINDOWS) {
+            assertThat(readMapped("\"ab\"cd,e\n", window)).containsExactly(Arrays.asList("ab", "e"));
+        }
+    }
+
+    /**
+     * A value a\"b as the CSV writers of this project quote it; OpenCSV's default parser
+     * takes the backslash as an escape and rejects the row
+     */
+    @Test
+    void backslashIsNotAnEscape() throws Exception {
+        String csv = "\"a\\\"\"b\",\"c\\d\"\n";
+        for (int window : WINDOWS) {
+            assertThat(readMapped(csv, window)).containsExactly(Arrays.asList("a\\\"b", "c\\d"));
+        }
+        assertThatThrownBy(() -> readOpenCsv(csv)).isInstanceOf(CsvMalformedLineException.class);
+    }
+
+    /**
+     * OpenCSV reads line by line and rejoins the lines of a quoted field with "\n"
+     */
+    @Test
+    void crlfInsideQuotesIsKept() throws Exception {
+        String csv = "\"crlf\r\ninside\",y\r\n";
+        for (int window : WINDOWS) {
+            assertThat(readMapped(csv, window)).containsExactly(Arrays.asList("crlf\r\ninside", "y"));
+        }
+        assertThat(readOpenCsv(csv)).containsExactly(Arrays.asList("crlf\ninside", "y"));
+    }
+
+    @Test
+    void rowNumbersCountTheHeader() throws Exception {
+        Path file = write("h\n1\n2\n");
+        try (MappedCsvReader reader = new MappedCsvReader(file, 3)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getRowNumber()).isEqualTo(1);
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getRowNumber()).isEqualTo(3);
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    @Test
+    void parseIntTrimsLikeIntegerParseInt() throws Exception {
+        Path file = write("\" 42 \",-7,+3,2147483648,1x\n");
+        try (MappedCsvReader reader = new MappedCsvReader(file, 4)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.parseInt(0)).isEqualTo(42);
+            assertThat(reader.parseInt(1)).isEqualTo(-7);
+            assertThat(reader.parseInt(2)).isEqualTo(3);
+            assertThat(catchNumberFormat(reader, 3)).isTrue();
+            assertThat(catchNumberFormat(reader, 4)).isTrue();
+        }
+    }
+
+    private static boolean catchNumberFormat(MappedCsvReader reader, int field) {
+        try {
+            reader.parseInt(field);
+            return false;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private void assertSameAsOpenCsv(String csv) throws Exception {
+        List<List<String>> expected = readOpenCsv(csv);
+        for (int window : WINDOWS) {
+            assertThat(readMapped(csv, window)).as("window of %d bytes", window).isEqualTo(expected);
+        }
+    }
+
+    private List<List<String>> readMapped(String csv, int window) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        try (MappedCsvReader reader = new MappedCsvReader(write(csv), window)) {
+            while (reader.next()) {
+                List<String> row = new ArrayList<>();
+                for (int i = 0; i < reader.getFieldCount(); i++) {
+                    row.add(reader.getString(i));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private List<List<String>> readOpenCsv(String csv) throws Exception {
+        List<List<String>> rows = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new InputStreamReader(Files.newInputStream(write(csv)), StandardCharsets.UTF_8))) {
+            for (String[] row : reader.readAll()) {
+                rows.add(Arrays.asList(row));
+            }
+        }
+        return rows;
+    }
+
+    private Path write(String csv) throws IOException {
+        Path file = Files.createTempFile(dir, "mapped_", ".csv");
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
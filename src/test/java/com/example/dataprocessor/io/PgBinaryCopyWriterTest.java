@@ -0,0 +1,139 @@
+package com.example.dataprocessor.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgBinaryCopyWriterTest {
+
+    @Test
+    void emptyStreamIsHeaderAndTrailer() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PgBinaryCopyWriter(out, 64).close();
+
+        Expected expected = new Expected();
+        expected.header();
+        expected.data.writeShort(-1);
+        assertThat(out.toByteArray()).isEqualTo(expected.bytes());
+    }
+
+    @Test
+    void rowWithEveryColumnType() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(out, 64)) {
+            // Student layout: int8 id, text names, date of birth, text class, int4 score
+            writer.startRow(6);
+            writer.int8(1234567890123L);
+            writer.text("Zoë");
+            writer.text("");
+            writer.date(LocalDate.of(2024, 2, 29).toEpochDay());
+            writer.text("Class1");
+            writer.int4(-5);
+
+            writer.startRow(6);
+            writer.int8(2);
+            writer.text("Ann");
+            writer.nullField();
+            writer.nullField();
+            writer.nullField();
+            writer.int4(Integer.MAX_VALUE);
+        }
+
+        Expected expected = new Expected();
+        expected.header();
+        expected.data.writeShort(6);
+        expected.data.writeInt(8);
+        expected.data.writeLong(1234567890123L);
+        expected.text("Zoë");
+        expected.text("");
+        expected.data.writeInt(4);
+        // Days since 2000-01-01: 24 years with 6 leap days, plus January and February 2024
+        expected.data.writeInt(24 * 365 + 6 + 31 + 28);
+        expected.text("Class1");
+        expected.data.writeInt(4);
+        expected.data.writeInt(-5);
+
+        expected.data.writeShort(6);
+        expected.data.writeInt(8);
+        expected.data.writeLong(2);
+        expected.text("Ann");
+        expected.data.writeInt(-1);
+        expected.data.writeInt(-1);
+        expected.data.writeInt(-1);
+        expected.data.writeInt(4);
+        expected.data.writeInt(Integer.MAX_VALUE);
+
+        expected.data.writeShort(-1);
+        assertThat(out.toByteArray()).isEqualTo(expected.bytes());
+    }
+
+    @Test
+    void datesAreRelativeToPostgresEpoch() throws IOException {
+        assertThat(dateBytes(LocalDate.of(2000, 1, 1))).isEqualTo(0);
+        assertThat(dateBytes(LocalDate.of(1999, 12, 31))).isEqualTo(-1);
+        assertThat(dateBytes(LocalDate.of(1970, 1, 1))).isEqualTo(-10957);
+    }
+
+    @Test
+    void textLongerThanTheBufferIsWrittenWhole() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            value.append("€😀x");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(out, 64)) {
+            writer.startRow(1);
+            writer.text(value);
+        }
+
+        Expected expected = new Expected();
+        expected.header();
+        expected.data.writeShort(1);
+        expected.text(value.toString());
+        expected.data.writeShort(-1);
+        assertThat(out.toByteArray()).isEqualTo(expected.bytes());
+    }
+
+    private static int dateBytes(LocalDate date) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(out, 64)) {
+            writer.date(date.toEpochDay());
+        }
+        byte[] bytes = out.toByteArray();
+        // 19-byte header, then the 4-byte length and the value
+        assertThat(bytes[19] << 24 | bytes[20] << 16 | bytes[21] << 8 | bytes[22]).isEqualTo(4);
+        return (bytes[23] & 0xFF) << 24 | (bytes[24] & 0xFF) << 16 | (bytes[25] & 0xFF) << 8 | (bytes[26] & 0xFF);
+    }
+
+    /**
+     * The stream a writer should produce, built with DataOutputStream's big-endian writes
+     */
+    private static final class Expected {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream data = new DataOutputStream(bytes);
+
+        void header() throws IOException {
+            data.write(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+            // Flags, header extension length
+            data.writeInt(0);
+            data.writeInt(0);
+        }
+
+        void text(String value) throws IOException {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(utf8.length);
+            data.write(utf8);
+        }
+
+        byte[] bytes() {
+            return bytes.toByteArray();
+        }
+    }
+}
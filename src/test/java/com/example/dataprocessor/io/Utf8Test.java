@@ -0,0 +1,82 @@
+package com.example.dataprocessor.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Utf8Test {
+
+    /** ASCII, quote, two- and three-byte chars and both halves of a surrogate pair */
+    private static final char[] POOL = {'a', '"', ',', 'é', '€', '\uD83D', '\uDE00', 'z'};
+
+    @Test
+    void encodesLikeStringGetBytes() {
+        String[] values = {"", "ascii", "Zoë", "€100", "😀", "a\uD83Db", "\uDE00", "\uD83D", "x\uDE00\uD83D"};
+        for (String value : values) {
+            assertThat(encode(value, false)).as(value).isEqualTo(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doublesQuotesOnlyWhenAsked() {
+        assertThat(encode("a\"b", true)).isEqualTo("a\"\"b".getBytes(StandardCharsets.UTF_8));
+        assertThat(encode("a\"b", false)).isEqualTo("a\"b".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void fittingEndKeepsSurrogatePairsTogether() {
+        String value = "ab😀";
+        assertThat(Utf8.fittingEnd(value, 0, value.length(), 9)).isEqualTo(2);
+        assertThat(Utf8.fittingEnd(value, 0, value.length(), 12)).isEqualTo(4);
+        assertThat(Utf8.fittingEnd(value, 2, value.length(), 3)).isEqualTo(2);
+        assertThat(Utf8.fittingEnd("\uD83D", 0, 1, 3)).isEqualTo(1);
+    }
+
+    @Test
+    void writersMatchStringGetBytesForRandomText() throws Exception {
+        Random random = new Random(42L);
+        for (int t = 0; t < 20_000; t++) {
+            String value = randomText(random, random.nextInt(200));
+
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            try (CsvRowWriter writer = new CsvRowWriter(csv, 64)) {
+                writer.field(value);
+                writer.endRow();
+            }
+            String expected = "\"" + value.replace("\"", "\"\"") + "\"\n";
+            assertThat(csv.toByteArray()).as("CSV of %s", value).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copy, random.nextBoolean() ? 64 : 4096)) {
+                writer.startRow(1);
+                writer.text(value);
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(copy.toByteArray());
+            // Skip the 19-byte header and the field count
+            bytes.position(19 + 2);
+            byte[] text = new byte[bytes.getInt()];
+            bytes.get(text);
+            assertThat(text).as("COPY text of %s", value).isEqualTo(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] encode(String value, boolean doubleQuotes) {
+        byte[] dest = new byte[Utf8.MAX_BYTES_PER_CHAR * value.length() + 1];
+        int end = Utf8.encode(value, 0, value.length(), dest, 1, doubleQuotes);
+        return Arrays.copyOfRange(dest, 1, end);
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(POOL[random.nextInt(POOL.length)]);
+        }
+        return text.toString();
+    }
+}